@@ -34,6 +34,7 @@ import org.sonar.plugins.csharp.squid.CSharpSquidConstants;
 import org.sonar.plugins.csharp.squid.CSharpSquidSensor;
 import org.sonar.plugins.csharp.squid.colorizer.CSharpSourceCodeColorizer;
 import org.sonar.plugins.csharp.squid.cpd.CSharpCPDMapping;
+import org.sonar.plugins.csharp.squid.cpd.CSharpCPDTokens;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -50,13 +51,142 @@ import java.util.List;
     + "", name = "Ignore literals", description = "if true, CPD ignores literal value differences when evaluating a duplicate block. "
     + "This means that 'my first text'; and 'my second text'; will be seen as equivalent.", project = true, global = true,
     type = PropertyType.BOOLEAN),
+  @Property(
+    key = CSharpSquidConstants.CPD_REUSE_SQUID_TOKENS_PROPERTY,
+    defaultValue = "" + CSharpSquidConstants.CPD_REUSE_SQUID_TOKENS_DEFVALUE,
+    name = "Reuse the Squid tokens for CPD",
+    description = "Set to 'true' to keep the tokens of each C# file read by the Squid analysis in memory until the duplications are "
+      + "detected, instead of reading the files a second time.",
+    project = true, global = true,
+    type = PropertyType.BOOLEAN),
+  @Property(
+    key = CSharpSquidConstants.CPD_THREADS_PROPERTY,
+    defaultValue = "" + CSharpSquidConstants.CPD_THREADS_DEFVALUE,
+    name = "Number of CPD threads",
+    description = "Number of threads used to read the C# files before the duplications are detected. With more than one thread, the "
+      + "tokens of all the files are kept in memory until the duplications are detected.",
+    project = true, global = true,
+    type = PropertyType.INTEGER),
   @Property(
     key = CSharpSquidConstants.IGNORE_HEADER_COMMENTS,
     defaultValue = "true",
     name = "Ignore header comments",
     description = "Set to 'true' to enable, or 'false' to disable.",
     project = true, global = true,
-    type = PropertyType.BOOLEAN)
+    type = PropertyType.BOOLEAN),
+  @Property(
+    key = CSharpSquidConstants.SQUID_THREADS_PROPERTY,
+    defaultValue = "" + CSharpSquidConstants.SQUID_THREADS_DEFVALUE,
+    name = "Number of analysis threads",
+    description = "Number of threads used to parse and analyse the C# files. Each thread has its own parser and its own set of checks.",
+    project = true, global = true,
+    type = PropertyType.INTEGER),
+  @Property(
+    key = CSharpSquidConstants.SQUID_INCREMENTAL_PROPERTY,
+    defaultValue = "" + CSharpSquidConstants.SQUID_INCREMENTAL_DEFVALUE,
+    name = "Incremental analysis",
+    description = "Set to 'true' to keep the results of the analysis of each C# file in the working directory, and to reuse them "
+      + "on the next analysis for the files which did not change.",
+    project = true, global = true,
+    type = PropertyType.BOOLEAN),
+  @Property(
+    key = CSharpSquidConstants.SQUID_STREAMING_PROPERTY,
+    defaultValue = "" + CSharpSquidConstants.SQUID_STREAMING_DEFVALUE,
+    name = "Save the results file by file",
+    description = "Set to 'true' to save the measures and violations of each C# file as soon as it has been analysed, instead of keeping "
+      + "the results of all the files in memory until the end of the analysis.",
+    project = true, global = true,
+    type = PropertyType.BOOLEAN),
+  @Property(
+    key = CSharpSquidConstants.SQUID_PROFILE_PROPERTY,
+    defaultValue = "" + CSharpSquidConstants.SQUID_PROFILE_DEFVALUE,
+    name = "Profile the analysis",
+    description = "Set to 'true' to log the slowest C# files and checks, and to write the time spent on each file and in each check "
+      + "to " + CSharpSquidConstants.SQUID_PROFILE_FILE_NAME + " in the working directory.",
+    project = true, global = true,
+    type = PropertyType.BOOLEAN),
+  @Property(
+    key = CSharpSquidConstants.SQUID_MEMOIZATION_PROPERTY,
+    defaultValue = CSharpSquidConstants.SQUID_MEMOIZATION_DEFVALUE,
+    name = "Parser memoization",
+    description = "Grammar rules whose matches the C# parser keeps to avoid matching them again: '"
+      + CSharpSquidConstants.MEMOIZATION_ALL_RULES + "' for all of them, '" + CSharpSquidConstants.MEMOIZATION_BACKTRACKED_RULES
+      + "' for the heavily backtracked types, expressions and statements only, which is faster and needs a bit less memory, or '"
+      + CSharpSquidConstants.MEMOIZATION_NONE + "' for none, which needs the least memory but is much slower.",
+    project = true, global = true,
+    type = PropertyType.SINGLE_SELECT_LIST,
+    options = {CSharpSquidConstants.MEMOIZATION_ALL_RULES, CSharpSquidConstants.MEMOIZATION_BACKTRACKED_RULES,
+      CSharpSquidConstants.MEMOIZATION_NONE}),
+  @Property(
+    key = CSharpSquidConstants.SQUID_ERROR_RECOVERY_PROPERTY,
+    defaultValue = "" + CSharpSquidConstants.SQUID_ERROR_RECOVERY_DEFVALUE,
+    name = "Recover from parse errors",
+    description = "Set to 'true' to skip the members and statements which cannot be parsed, and to analyse the rest of the C# file, "
+      + "instead of skipping the whole file.",
+    project = true, global = true,
+    type = PropertyType.BOOLEAN),
+  @Property(
+    key = CSharpSquidConstants.SQUID_CONDITIONAL_COMPILATION_PROPERTY,
+    defaultValue = "" + CSharpSquidConstants.SQUID_CONDITIONAL_COMPILATION_DEFVALUE,
+    name = "Evaluate the conditional compilation directives",
+    description = "Set to 'true' to evaluate the #if directives against the preprocessor symbols, and to parse only the code which is "
+      + "compiled, instead of parsing all the branches.",
+    project = true, global = true,
+    type = PropertyType.BOOLEAN),
+  @Property(
+    key = CSharpSquidConstants.SQUID_PREPROCESSOR_SYMBOLS_PROPERTY,
+    defaultValue = "",
+    name = "Preprocessor symbols",
+    description = "Comma-separated list of the symbols defined when evaluating the conditional compilation directives. When empty, the "
+      + "symbols defined in the project file for the build configuration and platform are used.",
+    project = true, global = false),
+  @Property(
+    key = CSharpSquidConstants.SQUID_GENERATED_CODE_PROPERTY,
+    defaultValue = CSharpSquidConstants.SQUID_GENERATED_CODE_DEFVALUE,
+    name = "Generated code",
+    description = "How the generated C# files are analysed: '" + CSharpSquidConstants.GENERATED_CODE_ANALYSE + "' like the other files, '"
+      + CSharpSquidConstants.GENERATED_CODE_LINES_ONLY + "' to only compute their line metrics, without parsing them nor reporting "
+      + "violations on them, or '" + CSharpSquidConstants.GENERATED_CODE_SKIP + "' not to analyse them at all.",
+    project = true, global = true,
+    type = PropertyType.SINGLE_SELECT_LIST,
+    options = {CSharpSquidConstants.GENERATED_CODE_ANALYSE, CSharpSquidConstants.GENERATED_CODE_LINES_ONLY, CSharpSquidConstants.GENERATED_CODE_SKIP}),
+  @Property(
+    key = CSharpSquidConstants.SQUID_GENERATED_CODE_FILE_PATTERNS_PROPERTY,
+    defaultValue = CSharpSquidConstants.SQUID_GENERATED_CODE_FILE_PATTERNS_DEFVALUE,
+    name = "Generated files",
+    description = "Comma-separated list of the patterns of the paths of the generated C# files.",
+    project = true, global = true),
+  @Property(
+    key = CSharpSquidConstants.SQUID_GENERATED_CODE_HEADER_MARKERS_PROPERTY,
+    defaultValue = CSharpSquidConstants.SQUID_GENERATED_CODE_HEADER_MARKERS_DEFVALUE,
+    name = "Generated code markers",
+    description = "Comma-separated list of the strings which, when found in the first " + CSharpSquidConstants.GENERATED_CODE_HEADER_SIZE + " bytes of a C# "
+      + "file, tell that it is generated.",
+    project = true, global = true),
+  @Property(
+    key = CSharpSquidConstants.SQUID_MAX_PARSED_FILE_SIZE_PROPERTY,
+    defaultValue = "" + CSharpSquidConstants.SQUID_MAX_PARSED_FILE_DEFVALUE,
+    name = "Maximum size of the parsed files",
+    description = "Size in bytes above which a C# file is not parsed: only its line metrics and the token based checks are computed. "
+      + "0 for no limit.",
+    project = true, global = true,
+    type = PropertyType.INTEGER),
+  @Property(
+    key = CSharpSquidConstants.SQUID_MAX_PARSED_FILE_LINES_PROPERTY,
+    defaultValue = "" + CSharpSquidConstants.SQUID_MAX_PARSED_FILE_DEFVALUE,
+    name = "Maximum number of lines of the parsed files",
+    description = "Number of lines above which a C# file is not parsed: only its line metrics and the token based checks are computed. "
+      + "0 for no limit.",
+    project = true, global = true,
+    type = PropertyType.INTEGER),
+  @Property(
+    key = CSharpSquidConstants.SQUID_MAX_PARSED_FILE_TOKENS_PROPERTY,
+    defaultValue = "" + CSharpSquidConstants.SQUID_MAX_PARSED_FILE_DEFVALUE,
+    name = "Maximum number of tokens of the parsed files",
+    description = "Number of tokens above which a C# file is not parsed: only its line metrics and the token based checks are computed. "
+      + "0 for no limit.",
+    project = true, global = true,
+    type = PropertyType.INTEGER)
 })
 public class CSharpCorePlugin extends SonarPlugin {
 
@@ -77,6 +207,7 @@ public class CSharpCorePlugin extends SonarPlugin {
 
     // C# Squid
     extensions.add(CSharpCPDMapping.class);
+    extensions.add(CSharpCPDTokens.class);
     extensions.add(CSharpSourceCodeColorizer.class);
     extensions.add(CSharpSquidSensor.class);
     extensions.add(CSharpResourcesBridge.class);
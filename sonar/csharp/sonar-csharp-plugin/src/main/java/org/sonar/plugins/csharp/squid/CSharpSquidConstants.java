@@ -30,6 +30,44 @@ public final class CSharpSquidConstants {
   public static final String CPD_MINIMUM_TOKENS_PROPERTY = "sonar.cpd.cs.minimumTokens";
   public static final String CPD_IGNORE_LITERALS_PROPERTY = "sonar.cpd.cs.ignoreLiteral";
   public static final boolean CPD_IGNORE_LITERALS_DEFVALUE = true;
+  public static final String CPD_REUSE_SQUID_TOKENS_PROPERTY = "sonar.cpd.cs.reuseSquidTokens";
+  public static final boolean CPD_REUSE_SQUID_TOKENS_DEFVALUE = false;
+  public static final String CPD_THREADS_PROPERTY = "sonar.cpd.cs.threads";
+  public static final int CPD_THREADS_DEFVALUE = 1;
   public static final String IGNORE_HEADER_COMMENTS = "sonar.cs.ignoreHeaderComments";
+  public static final String SQUID_THREADS_PROPERTY = "sonar.cs.squid.threads";
+  public static final int SQUID_THREADS_DEFVALUE = 1;
+  public static final String SQUID_INCREMENTAL_PROPERTY = "sonar.cs.squid.incremental";
+  public static final boolean SQUID_INCREMENTAL_DEFVALUE = false;
+  public static final String SQUID_CACHE_FILE_NAME = "csharp-squid.cache";
+  public static final String SQUID_STREAMING_PROPERTY = "sonar.cs.squid.streaming";
+  public static final boolean SQUID_STREAMING_DEFVALUE = false;
+  public static final String SQUID_PROFILE_PROPERTY = "sonar.cs.squid.profile";
+  public static final boolean SQUID_PROFILE_DEFVALUE = false;
+  public static final String SQUID_PROFILE_FILE_NAME = "csharp-squid-profile.xml";
+  public static final String SQUID_MEMOIZATION_PROPERTY = "sonar.cs.squid.memoization";
+  public static final String MEMOIZATION_ALL_RULES = "allRules";
+  public static final String MEMOIZATION_BACKTRACKED_RULES = "backtrackedRules";
+  public static final String MEMOIZATION_NONE = "none";
+  public static final String SQUID_MEMOIZATION_DEFVALUE = MEMOIZATION_ALL_RULES;
+  public static final String SQUID_ERROR_RECOVERY_PROPERTY = "sonar.cs.squid.errorRecovery";
+  public static final boolean SQUID_ERROR_RECOVERY_DEFVALUE = false;
+  public static final String SQUID_CONDITIONAL_COMPILATION_PROPERTY = "sonar.cs.squid.conditionalCompilation";
+  public static final boolean SQUID_CONDITIONAL_COMPILATION_DEFVALUE = false;
+  public static final String SQUID_PREPROCESSOR_SYMBOLS_PROPERTY = "sonar.cs.squid.preprocessorSymbols";
+  public static final String SQUID_GENERATED_CODE_PROPERTY = "sonar.cs.squid.generatedCode";
+  public static final String GENERATED_CODE_ANALYSE = "analyse";
+  public static final String GENERATED_CODE_LINES_ONLY = "linesOnly";
+  public static final String GENERATED_CODE_SKIP = "skip";
+  public static final String SQUID_GENERATED_CODE_DEFVALUE = GENERATED_CODE_ANALYSE;
+  public static final String SQUID_GENERATED_CODE_FILE_PATTERNS_PROPERTY = "sonar.cs.squid.generatedCode.filePatterns";
+  public static final String SQUID_GENERATED_CODE_FILE_PATTERNS_DEFVALUE = "**/*.Designer.cs,**/*.designer.cs,**/*.g.cs,**/*.g.i.cs,**/Reference.cs";
+  public static final String SQUID_GENERATED_CODE_HEADER_MARKERS_PROPERTY = "sonar.cs.squid.generatedCode.headerMarkers";
+  public static final String SQUID_GENERATED_CODE_HEADER_MARKERS_DEFVALUE = "<auto-generated,<autogenerated";
+  public static final int GENERATED_CODE_HEADER_SIZE = 2048;
+  public static final String SQUID_MAX_PARSED_FILE_SIZE_PROPERTY = "sonar.cs.squid.maxParsedFileSize";
+  public static final String SQUID_MAX_PARSED_FILE_LINES_PROPERTY = "sonar.cs.squid.maxParsedFileLines";
+  public static final String SQUID_MAX_PARSED_FILE_TOKENS_PROPERTY = "sonar.cs.squid.maxParsedFileTokens";
+  public static final int SQUID_MAX_PARSED_FILE_DEFVALUE = 0;
 
 }
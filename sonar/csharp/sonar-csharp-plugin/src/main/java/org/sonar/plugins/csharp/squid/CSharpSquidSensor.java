@@ -19,13 +19,25 @@
  */
 package org.sonar.plugins.csharp.squid;
 
+import com.google.common.base.Charsets;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
 import com.sonar.csharp.checks.CheckList;
+import com.sonar.csharp.checks.CompiledCommentRegularExpressionChecks;
+import com.sonar.csharp.checks.CompiledXPathChecks;
 import com.sonar.csharp.squid.CSharpConfiguration;
+import com.sonar.csharp.squid.CSharpConfiguration.Memoization;
 import com.sonar.csharp.squid.api.CSharpMetric;
 import com.sonar.csharp.squid.api.source.SourceMember;
+import com.sonar.csharp.squid.api.source.SourceMembers;
 import com.sonar.csharp.squid.metric.CSharpFileLinesVisitor;
 import com.sonar.csharp.squid.scanner.CSharpAstScanner;
+import com.sonar.csharp.squid.scanner.CSharpParallelAstScanner;
+import com.sonar.csharp.squid.scanner.ScanProfile;
+import com.sonar.csharp.squid.scanner.SourceFileListener;
 import com.sonar.sslr.api.Grammar;
 import com.sonar.sslr.squid.AstScanner;
 import com.sonar.sslr.squid.SquidAstVisitor;
@@ -49,20 +61,33 @@ import org.sonar.api.resources.Resource;
 import org.sonar.api.rules.Violation;
 import org.sonar.plugins.csharp.api.CSharp;
 import org.sonar.plugins.csharp.api.CSharpConstants;
+import org.sonar.plugins.csharp.squid.cache.AnalysisCache;
+import org.sonar.plugins.csharp.squid.cache.CachedFile;
+import org.sonar.plugins.csharp.squid.cache.LineValues;
+import org.sonar.plugins.csharp.squid.cache.RecordingFileLinesContextFactory;
 import org.sonar.plugins.csharp.squid.check.CSharpCheck;
+import org.sonar.plugins.csharp.squid.cpd.CSharpCPDTokens;
+import org.sonar.plugins.csharp.squid.cpd.CSharpCPDTokensVisitor;
 import org.sonar.plugins.dotnet.api.DotNetConfiguration;
 import org.sonar.plugins.dotnet.api.DotNetConstants;
 import org.sonar.plugins.dotnet.api.microsoft.MicrosoftWindowsEnvironment;
+import org.sonar.plugins.dotnet.api.microsoft.VisualStudioProject;
 import org.sonar.plugins.dotnet.api.sensor.AbstractRegularDotNetSensor;
 import org.sonar.squid.api.CheckMessage;
 import org.sonar.squid.api.SourceCode;
+import org.sonar.squid.api.SourceCodeSearchEngine;
 import org.sonar.squid.api.SourceFile;
-import org.sonar.squid.indexer.QueryByParent;
+import org.sonar.squid.api.SourceProject;
 import org.sonar.squid.indexer.QueryByType;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 @DependsUpon(DotNetConstants.CORE_PLUGIN_EXECUTED)
@@ -73,37 +98,51 @@ public final class CSharpSquidSensor extends AbstractRegularDotNetSensor {
   private static final Number[] METHOD_DISTRIB_BOTTOM_LIMITS = {1, 2, 4, 6, 8, 10, 12};
   private static final Number[] FILES_DISTRIB_BOTTOM_LIMITS = {0, 5, 10, 20, 30, 60, 90};
   private static final String[] SUPPORTED_LANGUAGES = new String[] {CSharpConstants.LANGUAGE_KEY};
+  private static final int PROFILE_SUMMARY_SIZE = 10;
 
   private final CSharp cSharp;
   private final CSharpResourcesBridge cSharpResourcesBridge;
   private final ResourceCreationLock resourceCreationLock;
   private final NoSonarFilter noSonarFilter;
   private final AnnotationCheckFactory annotationCheckFactory;
+  private final CheckCloner checkCloner;
+  private final Map<String, CachedFile> cachedFiles = Maps.newHashMap();
   private final FileLinesContextFactory fileLinesContextFactory;
+  private final CSharpCPDTokens cpdTokens;
+  private final Set<String> generatedFiles = Sets.newHashSet();
 
   private Project project;
   private SensorContext context;
-  private AstScanner<Grammar> scanner;
+  private SourceCodeSearchEngine index;
+  private AnalysisCache cache;
+  private RecordingFileLinesContextFactory recordingFileLinesContextFactory;
+  private ScanProfile scanProfile;
+  private SourceFileListener sourceFileListener;
+  private boolean retainCpdTokens;
+  private String generatedCode;
 
   public CSharpSquidSensor(DotNetConfiguration dotNetConfiguration, CSharp cSharp, CSharpResourcesBridge cSharpResourcesBridge, ResourceCreationLock resourceCreationLock,
-      MicrosoftWindowsEnvironment microsoftWindowsEnvironment, RulesProfile profile, NoSonarFilter noSonarFilter, FileLinesContextFactory fileLinesContextFactory) {
+      MicrosoftWindowsEnvironment microsoftWindowsEnvironment, RulesProfile profile, NoSonarFilter noSonarFilter, FileLinesContextFactory fileLinesContextFactory,
+      CSharpCPDTokens cpdTokens) {
     this(dotNetConfiguration, cSharp, cSharpResourcesBridge, resourceCreationLock, microsoftWindowsEnvironment, profile, noSonarFilter, fileLinesContextFactory,
-        new CSharpCheck[] {});
+        cpdTokens, new CSharpCheck[] {});
   }
 
   public CSharpSquidSensor(DotNetConfiguration dotNetConfiguration, CSharp cSharp, CSharpResourcesBridge cSharpResourcesBridge, ResourceCreationLock resourceCreationLock,
       MicrosoftWindowsEnvironment microsoftWindowsEnvironment, RulesProfile profile, NoSonarFilter noSonarFilter, FileLinesContextFactory fileLinesContextFactory,
-      CSharpCheck[] cSharpChecks) {
+      CSharpCPDTokens cpdTokens, CSharpCheck[] cSharpChecks) {
     super(dotNetConfiguration, microsoftWindowsEnvironment, "Squid C#", "");
     this.cSharp = cSharp;
     this.cSharpResourcesBridge = cSharpResourcesBridge;
     this.resourceCreationLock = resourceCreationLock;
     this.noSonarFilter = noSonarFilter;
     this.fileLinesContextFactory = fileLinesContextFactory;
+    this.cpdTokens = cpdTokens;
 
     Collection<Class> allChecks = CSharpCheck.toCollection(cSharpChecks);
     allChecks.addAll(CheckList.getChecks());
     this.annotationCheckFactory = AnnotationCheckFactory.create(profile, CSharpSquidConstants.REPOSITORY_KEY, allChecks);
+    this.checkCloner = new CheckCloner(annotationCheckFactory);
   }
 
   /**
@@ -123,15 +162,155 @@ public final class CSharpSquidSensor extends AbstractRegularDotNetSensor {
     this.project = project;
     this.context = context;
 
-    Collection<SquidAstVisitor<Grammar>> squidChecks = annotationCheckFactory.getChecks();
-    List<SquidAstVisitor<Grammar>> visitors = Lists.newArrayList(squidChecks);
-    // TODO: remove the following line & class once SSLR Squid bridge computes NCLOC_DATA_KEY & COMMENT_LINES_DATA_KEY
-    visitors.add(new CSharpFileLinesVisitor(project, fileLinesContextFactory));
-    scanner = CSharpAstScanner.create(createParserConfiguration(project), visitors.toArray(new SquidAstVisitor[visitors.size()]));
-    scanner.scanFiles(getFilesToAnalyse(project));
+    CSharpConfiguration conf = createParserConfiguration(project);
+    List<java.io.File> filesToScan = filterGeneratedCode(conf, getFilesToAnalyse(project));
+    FileLinesContextFactory scanFileLinesContextFactory = fileLinesContextFactory;
+    if (configuration.getBoolean(CSharpSquidConstants.SQUID_INCREMENTAL_PROPERTY)) {
+      java.io.File cacheFile = new java.io.File(project.getFileSystem().getSonarWorkingDirectory(), CSharpSquidConstants.SQUID_CACHE_FILE_NAME);
+      cache = AnalysisCache.load(cacheFile, AnalysisCache.createFingerprint(conf, generatedCode, annotationCheckFactory));
+      recordingFileLinesContextFactory = new RecordingFileLinesContextFactory(fileLinesContextFactory);
+      scanFileLinesContextFactory = recordingFileLinesContextFactory;
+      filesToScan = takeCachedFiles(filesToScan);
+      LOG.info("{} C# files are unchanged since the previous analysis and will not be parsed again", cachedFiles.size());
+    }
+
+    if (configuration.getBoolean(CSharpSquidConstants.SQUID_PROFILE_PROPERTY)) {
+      scanProfile = new ScanProfile();
+    }
+    if (configuration.getBoolean(CSharpSquidConstants.SQUID_STREAMING_PROPERTY)) {
+      sourceFileListener = new SourceFileListener() {
+
+        public void onSourceFile(SourceFile squidFile) {
+          saveFile(squidFile);
+        }
+
+      };
+    }
+    retainCpdTokens = configuration.getBoolean(CSharpSquidConstants.CPD_REUSE_SQUID_TOKENS_PROPERTY);
+
+    int threads = configuration.getInt(CSharpSquidConstants.SQUID_THREADS_PROPERTY);
+    if (threads > 1) {
+      scanInParallel(conf, threads, filesToScan, scanFileLinesContextFactory);
+    } else {
+      Collection<SquidAstVisitor<Grammar>> squidChecks = annotationCheckFactory.getChecks();
+      List<SquidAstVisitor<Grammar>> visitors = Lists.newArrayList(squidChecks);
+      // TODO: remove the following line & class once SSLR Squid bridge computes NCLOC_DATA_KEY & COMMENT_LINES_DATA_KEY
+      visitors.add(new CSharpFileLinesVisitor(project, scanFileLinesContextFactory));
+      addCpdTokensVisitor(visitors);
+      visitors = compileChecks(visitors);
+      AstScanner<Grammar> scanner = CSharpAstScanner.create(conf, scanProfile, sourceFileListener,
+          visitors.toArray(new SquidAstVisitor[visitors.size()]));
+      scanner.scanFiles(filesToScan);
+      index = scanner.getIndex();
+    }
+    if (scanProfile != null) {
+      reportProfile(new java.io.File(project.getFileSystem().getSonarWorkingDirectory(), CSharpSquidConstants.SQUID_PROFILE_FILE_NAME));
+    }
+    restoreCachedFiles();
+
+    if (sourceFileListener == null) {
+      for (SourceCode squidFile : index.search(new QueryByType(SourceFile.class))) {
+        saveFile((SourceFile) squidFile);
+      }
+    }
+
+    // and lock everything to prevent future modifications
+    LOG.debug("Locking the C# Resource Bridge and the Sonar Index: future modifications won't be possible.");
+    cSharpResourcesBridge.lock();
+    resourceCreationLock.lock();
+
+    if (cache != null) {
+      cache.save();
+    }
+  }
+
+  /**
+   * Checks are not thread-safe: each worker gets its own copies of the ones created by the {@link AnnotationCheckFactory}.
+   */
+  private void scanInParallel(CSharpConfiguration conf, int threads, List<java.io.File> files, FileLinesContextFactory scanFileLinesContextFactory) {
+    LOG.info("Analysing the C# files with {} threads", threads);
+    final FileLinesContextFactory synchronizedFileLinesContextFactory = new SynchronizedFileLinesContextFactory(scanFileLinesContextFactory);
+    CSharpParallelAstScanner scanner = new CSharpParallelAstScanner(conf, threads,
+        new CSharpParallelAstScanner.VisitorsFactory() {
+
+          public List<SquidAstVisitor<Grammar>> createVisitors() {
+            List<SquidAstVisitor<Grammar>> visitors = checkCloner.cloneChecks();
+            visitors.add(new CSharpFileLinesVisitor(project, synchronizedFileLinesContextFactory));
+            addCpdTokensVisitor(visitors);
+            return compileChecks(visitors);
+          }
+
+        }, scanProfile, sourceFileListener);
+    scanner.scanFiles(files);
+    index = scanner.getIndex();
+  }
+
+  private void addCpdTokensVisitor(List<SquidAstVisitor<Grammar>> visitors) {
+    if (retainCpdTokens) {
+      visitors.add(new CSharpCPDTokensVisitor(cpdTokens, configuration.getBoolean(CSharpSquidConstants.CPD_IGNORE_LITERALS_PROPERTY)));
+    }
+  }
+
+  /**
+   * The XPath and comment regular expression checks are evaluated together rather than each on its own, as custom rules are usually
+   * instantiated many times.
+   */
+  private List<SquidAstVisitor<Grammar>> compileChecks(List<SquidAstVisitor<Grammar>> visitors) {
+    return CompiledCommentRegularExpressionChecks.compile(CompiledXPathChecks.compile(visitors, scanProfile));
+  }
+
+  private void reportProfile(java.io.File reportFile) {
+    LOG.info("Slowest C# files (lex / parse / visit time in ms, AST nodes):");
+    for (ScanProfile.FileProfile file : scanProfile.getSlowestFiles(PROFILE_SUMMARY_SIZE)) {
+      LOG.info("  {} ms: {} ({} / {} / {}, {})",
+          new Object[] {file.getTotalTime(), file.getPath(), file.getLexTime(), file.getParseTime(), file.getVisitTime(), file.getAstNodes()});
+    }
+    LOG.info("Slowest C# checks and visitors:");
+    for (ScanProfile.VisitorProfile visitor : scanProfile.getSlowestVisitors(PROFILE_SUMMARY_SIZE)) {
+      LOG.info("  {} ms: {}", visitor.getTime(), visitor.getName());
+    }
+
+    Writer writer = null;
+    try {
+      Files.createParentDirs(reportFile);
+      writer = Files.newWriter(reportFile, Charsets.UTF_8);
+      scanProfile.writeTo(writer);
+      LOG.info("C# analysis profile written to {}", reportFile.getAbsolutePath());
+    } catch (IOException e) {
+      LOG.warn("Unable to write the C# analysis profile " + reportFile.getAbsolutePath(), e);
+    } finally {
+      Closeables.closeQuietly(writer);
+    }
+  }
+
+  private List<java.io.File> takeCachedFiles(List<java.io.File> files) {
+    List<java.io.File> result = Lists.newArrayList();
+    for (java.io.File file : files) {
+      CachedFile cachedFile = cache.get(file);
+      if (cachedFile == null) {
+        result.add(file);
+      } else {
+        cachedFiles.put(file.getAbsolutePath(), cachedFile);
+      }
+    }
+    return result;
+  }
 
-    Collection<SourceCode> squidSourceFiles = scanner.getIndex().search(new QueryByType(SourceFile.class));
-    saveMeasures(squidSourceFiles);
+  private void restoreCachedFiles() {
+    if (cachedFiles.isEmpty()) {
+      return;
+    }
+    Map<String, Object> checksByRuleKey = Maps.newHashMap();
+    for (Object check : annotationCheckFactory.getChecks()) {
+      checksByRuleKey.put(annotationCheckFactory.getActiveRule(check).getRuleKey(), check);
+    }
+    SourceProject squidProject = (SourceProject) index.search(new QueryByType(SourceProject.class)).iterator().next();
+    for (CachedFile cachedFile : cachedFiles.values()) {
+      SourceFile squidFile = cachedFile.restore(squidProject, checksByRuleKey);
+      if (sourceFileListener != null) {
+        sourceFileListener.onSourceFile(squidFile);
+      }
+    }
   }
 
   private List<java.io.File> getFilesToAnalyse(Project project) {
@@ -143,43 +322,137 @@ public final class CSharpSquidSensor extends AbstractRegularDotNetSensor {
     return result;
   }
 
+  /**
+   * Depending on the configuration, the generated files are either analysed like the other ones, only tokenized to get their line
+   * metrics, or left out. The violations found on the tokenized ones are not saved.
+   */
+  private List<java.io.File> filterGeneratedCode(CSharpConfiguration conf, List<java.io.File> files) {
+    generatedCode = configuration.getString(CSharpSquidConstants.SQUID_GENERATED_CODE_PROPERTY);
+    boolean linesOnly = CSharpSquidConstants.GENERATED_CODE_LINES_ONLY.equals(generatedCode);
+    if (!linesOnly && !CSharpSquidConstants.GENERATED_CODE_SKIP.equals(generatedCode)) {
+      return files;
+    }
+
+    GeneratedCodeFilter filter = new GeneratedCodeFilter(
+        configuration.getStringArray(CSharpSquidConstants.SQUID_GENERATED_CODE_FILE_PATTERNS_PROPERTY),
+        configuration.getStringArray(CSharpSquidConstants.SQUID_GENERATED_CODE_HEADER_MARKERS_PROPERTY),
+        conf.getCharset());
+    generatedCode += filter;
+    List<java.io.File> result = Lists.newArrayList();
+    List<java.io.File> generated = Lists.newArrayList();
+    for (java.io.File file : files) {
+      if (filter.isGenerated(file)) {
+        generated.add(file);
+      } else {
+        result.add(file);
+      }
+    }
+
+    if (linesOnly) {
+      conf.setUnparsedFiles(generated);
+      for (java.io.File file : generated) {
+        generatedFiles.add(file.getAbsolutePath());
+      }
+      LOG.info("{} generated C# files will not be parsed: only their line metrics will be computed", generated.size());
+      return files;
+    }
+    LOG.info("{} generated C# files will not be analysed", generated.size());
+    return result;
+  }
+
   private CSharpConfiguration createParserConfiguration(Project project) {
     CSharpConfiguration conf = new CSharpConfiguration(project.getFileSystem().getSourceCharset());
     conf.setIgnoreHeaderComments(configuration.getBoolean(CSharpSquidConstants.IGNORE_HEADER_COMMENTS));
+    conf.setMemoization(getMemoization());
+    conf.setErrorRecovery(configuration.getBoolean(CSharpSquidConstants.SQUID_ERROR_RECOVERY_PROPERTY));
+    conf.setMaxParsedFileSize(configuration.getInt(CSharpSquidConstants.SQUID_MAX_PARSED_FILE_SIZE_PROPERTY));
+    conf.setMaxParsedFileLines(configuration.getInt(CSharpSquidConstants.SQUID_MAX_PARSED_FILE_LINES_PROPERTY));
+    conf.setMaxParsedFileTokens(configuration.getInt(CSharpSquidConstants.SQUID_MAX_PARSED_FILE_TOKENS_PROPERTY));
+    if (configuration.getBoolean(CSharpSquidConstants.SQUID_CONDITIONAL_COMPILATION_PROPERTY)) {
+      conf.setPreprocessorSymbols(getPreprocessorSymbols(project));
+      LOG.info("Evaluating the conditional compilation directives with the symbols {}", conf.getPreprocessorSymbols());
+    }
     return conf;
   }
 
-  private void saveMeasures(Collection<SourceCode> sourceFiles) {
-    for (SourceCode squidFileCode : sourceFiles) {
-      SourceFile squidFile = (SourceFile) squidFileCode;
+  private Memoization getMemoization() {
+    String memoization = configuration.getString(CSharpSquidConstants.SQUID_MEMOIZATION_PROPERTY);
+    if (CSharpSquidConstants.MEMOIZATION_BACKTRACKED_RULES.equals(memoization)) {
+      return Memoization.BACKTRACKED_RULES;
+    } else if (CSharpSquidConstants.MEMOIZATION_NONE.equals(memoization)) {
+      return Memoization.NONE;
+    }
+    return Memoization.ALL_RULES;
+  }
+
+  /**
+   * The symbols can be given explicitly, otherwise they are the ones of the build configuration in the Visual Studio project.
+   */
+  private Collection<String> getPreprocessorSymbols(Project project) {
+    String[] symbols = configuration.getStringArray(CSharpSquidConstants.SQUID_PREPROCESSOR_SYMBOLS_PROPERTY);
+    if (symbols.length > 0) {
+      return Arrays.asList(symbols);
+    }
+    VisualStudioProject vsProject = getVSProject(project);
+    if (vsProject == null) {
+      return Collections.emptyList();
+    }
+    return vsProject.getDefineConstants(configuration.getString(DotNetConstants.BUILD_CONFIGURATION_KEY),
+        configuration.getString(DotNetConstants.BUILD_PLATFORM_KEY));
+  }
 
-      /* Create the sonar file */
-      File sonarFile = File.fromIOFile(new java.io.File(squidFile.getKey()), project);
-      sonarFile.setLanguage(cSharp);
+  /**
+   * Synchronized, as the files are saved by the workers of the parallel scan when they are streamed.
+   */
+  private synchronized void saveFile(SourceFile squidFile) {
+    /* Create the sonar file */
+    File sonarFile = File.fromIOFile(new java.io.File(squidFile.getKey()), project);
+    sonarFile.setLanguage(cSharp);
 
-      /* Fill the resource bridge API that can be used by other C# plugins to map logical resources to physical ones */
-      cSharpResourcesBridge.indexFile(squidFile, sonarFile);
+    /* Fill the resource bridge API that can be used by other C# plugins to map logical resources to physical ones */
+    cSharpResourcesBridge.indexFile(squidFile, sonarFile);
 
-      /* No Sonar */
-      noSonarFilter.addResource(sonarFile, squidFile.getNoSonarTagLines());
+    /* No Sonar */
+    noSonarFilter.addResource(sonarFile, squidFile.getNoSonarTagLines());
 
-      /* Files complexity distribution */
-      saveFilesComplexityDistribution(sonarFile, squidFile);
+    /* Files complexity distribution */
+    saveFilesComplexityDistribution(sonarFile, squidFile);
 
-      /* Methods complexity distribution */
-      saveMethodsComplexityDistribution(sonarFile, squidFile);
+    /* Methods complexity distribution */
+    saveMethodsComplexityDistribution(sonarFile, squidFile);
 
-      /* Check messages */
+    /* Check messages, except on the generated files */
+    if (!generatedFiles.contains(squidFile.getKey())) {
       saveViolations(squidFile, sonarFile);
+    }
 
-      /* Metrics at the file level */
-      saveMeasures(sonarFile, squidFile);
+    /* Metrics at the file level */
+    saveMeasures(sonarFile, squidFile);
+
+    /* Incremental analysis */
+    if (cache != null) {
+      updateCache(squidFile, sonarFile);
     }
+  }
 
-    // and lock everything to prevent future modifications
-    LOG.debug("Locking the C# Resource Bridge and the Sonar Index: future modifications won't be possible.");
-    cSharpResourcesBridge.lock();
-    resourceCreationLock.lock();
+  private void updateCache(SourceFile squidFile, File sonarFile) {
+    CachedFile cachedFile = cachedFiles.get(squidFile.getKey());
+    if (cachedFile != null) {
+      cachedFile.getLineValues().saveTo(fileLinesContextFactory.createFor(sonarFile));
+      return;
+    }
+
+    cachedFile = CachedFile.of(squidFile);
+    LineValues lineValues = recordingFileLinesContextFactory.getLineValues(sonarFile);
+    if (cachedFile != null && lineValues != null) {
+      cachedFile.setLineValues(lineValues);
+      if (squidFile.hasCheckMessages()) {
+        for (CheckMessage message : squidFile.getCheckMessages()) {
+          cachedFile.addMessage(checkCloner.getActiveRule(message.getCheck()).getRuleKey(), message.getLine(), message.getText(Locale.ENGLISH));
+        }
+      }
+      cache.put(new java.io.File(squidFile.getKey()), cachedFile);
+    }
   }
 
   private void saveMeasures(Resource sonarFile, SourceCode squidFile) {
@@ -204,7 +477,7 @@ public final class CSharpSquidSensor extends AbstractRegularDotNetSensor {
     if (messages != null) {
       for (CheckMessage message : messages) {
         @SuppressWarnings("unchecked")
-        Violation violation = Violation.create(annotationCheckFactory.getActiveRule(message.getCheck()), sonarFile);
+        Violation violation = Violation.create(checkCloner.getActiveRule(message.getCheck()), sonarFile);
         violation.setLineId(message.getLine());
         violation.setMessage(message.getText(Locale.ENGLISH));
         context.saveViolation(violation);
@@ -219,11 +492,10 @@ public final class CSharpSquidSensor extends AbstractRegularDotNetSensor {
   }
 
   private void saveMethodsComplexityDistribution(File sonarFile, SourceFile squidFile) {
-    Collection<SourceCode> squidMethods = scanner.getIndex().search(new QueryByParent(squidFile), new QueryByType(SourceMember.class));
     RangeDistributionBuilder complexityMethodDistribution = new RangeDistributionBuilder(CoreMetrics.FUNCTION_COMPLEXITY_DISTRIBUTION,
         METHOD_DISTRIB_BOTTOM_LIMITS);
 
-    for (SourceCode squidMethod : squidMethods) {
+    for (SourceMember squidMethod : SourceMembers.of(squidFile)) {
       complexityMethodDistribution.add(squidMethod.getDouble(CSharpMetric.COMPLEXITY));
     }
 
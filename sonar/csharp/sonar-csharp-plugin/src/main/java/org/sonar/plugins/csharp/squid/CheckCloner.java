@@ -0,0 +1,90 @@
+/*
+ * Sonar C# Plugin :: Core
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.csharp.squid;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.squid.SquidAstVisitor;
+import org.sonar.api.checks.AnnotationCheckFactory;
+import org.sonar.api.rules.ActiveRule;
+import org.sonar.api.utils.SonarException;
+import org.sonar.check.RuleProperty;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates new sets of check instances, configured like the ones of an {@link AnnotationCheckFactory}. Checks keep per-file state in
+ * their fields, so each scanning thread needs its own instances.
+ */
+class CheckCloner {
+
+  private final AnnotationCheckFactory annotationCheckFactory;
+  private final Map<Object, ActiveRule> activeRulesByClone = Collections.synchronizedMap(Maps.<Object, ActiveRule> newIdentityHashMap());
+
+  public CheckCloner(AnnotationCheckFactory annotationCheckFactory) {
+    this.annotationCheckFactory = annotationCheckFactory;
+  }
+
+  /**
+   * Returns a copy of every check of the factory, with the same {@link RuleProperty} values.
+   */
+  @SuppressWarnings("unchecked")
+  public List<SquidAstVisitor<Grammar>> cloneChecks() {
+    List<SquidAstVisitor<Grammar>> clones = Lists.newArrayList();
+    for (Object check : annotationCheckFactory.getChecks()) {
+      Object clone = cloneCheck(check);
+      activeRulesByClone.put(clone, annotationCheckFactory.getActiveRule(check));
+      clones.add((SquidAstVisitor<Grammar>) clone);
+    }
+    return clones;
+  }
+
+  /**
+   * Returns the active rule of a check, whether it was created by the factory or cloned.
+   */
+  public ActiveRule getActiveRule(Object check) {
+    ActiveRule activeRule = activeRulesByClone.get(check);
+    return activeRule == null ? annotationCheckFactory.getActiveRule(check) : activeRule;
+  }
+
+  private static Object cloneCheck(Object check) {
+    try {
+      Object clone = check.getClass().newInstance();
+      for (Class<?> clazz = check.getClass(); clazz != null; clazz = clazz.getSuperclass()) {
+        for (Field field : clazz.getDeclaredFields()) {
+          if (field.isAnnotationPresent(RuleProperty.class)) {
+            field.setAccessible(true);
+            field.set(clone, field.get(check));
+          }
+        }
+      }
+      return clone;
+    } catch (InstantiationException e) {
+      throw new SonarException("Can not clone the check " + check.getClass().getName(), e);
+    } catch (IllegalAccessException e) {
+      throw new SonarException("Can not clone the check " + check.getClass().getName(), e);
+    }
+  }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Sonar C# Plugin :: Core
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.csharp.squid;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.utils.WildcardPattern;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Tells whether a C# file is generated, either from its path or from the markers found in its header, like the &lt;auto-generated&gt; tag
+ * of the files generated by Visual Studio. Only the first bytes of the files are read.
+ */
+class GeneratedCodeFilter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(GeneratedCodeFilter.class);
+
+  private final String[] filePatterns;
+  private final WildcardPattern[] wildcardPatterns;
+  private final String[] headerMarkers;
+  private final Charset charset;
+
+  /**
+   * @param filePatterns
+   *          the patterns of the paths of the generated files, like "**&#47;*.Designer.cs"
+   * @param headerMarkers
+   *          the strings which, when found in the header of a file, tell that it is generated
+   */
+  public GeneratedCodeFilter(String[] filePatterns, String[] headerMarkers, Charset charset) {
+    this.filePatterns = filePatterns.clone();
+    this.wildcardPatterns = WildcardPattern.create(filePatterns);
+    this.headerMarkers = headerMarkers.clone();
+    this.charset = charset;
+  }
+
+  public boolean isGenerated(File file) {
+    if (WildcardPattern.match(wildcardPatterns, file.getAbsolutePath().replace('\\', '/'))) {
+      return true;
+    }
+    if (headerMarkers.length == 0) {
+      return false;
+    }
+    String header = readHeader(file);
+    for (String headerMarker : headerMarkers) {
+      if (header.contains(headerMarker)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private String readHeader(File file) {
+    InputStream input = null;
+    try {
+      input = new FileInputStream(file);
+      byte[] bytes = new byte[CSharpSquidConstants.GENERATED_CODE_HEADER_SIZE];
+      int length = ByteStreams.read(input, bytes, 0, bytes.length);
+      return new String(bytes, 0, length, charset);
+    } catch (IOException e) {
+      LOG.warn("Unable to read the header of " + file.getAbsolutePath() + ": it is not considered as generated", e);
+      return "";
+    } finally {
+      Closeables.closeQuietly(input);
+    }
+  }
+
+  /**
+   * Part of the fingerprint of the analysis, as the files found to be generated are analysed differently.
+   */
+  @Override
+  public String toString() {
+    return Arrays.toString(filePatterns) + Arrays.toString(headerMarkers);
+  }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Sonar C# Plugin :: Core
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.csharp.squid;
+
+import org.sonar.api.measures.FileLinesContext;
+import org.sonar.api.measures.FileLinesContextFactory;
+import org.sonar.api.resources.Resource;
+
+/**
+ * Makes a {@link FileLinesContextFactory} usable from several analysis threads: the contexts are created and saved one at a time, as
+ * the Sonar index is not thread-safe.
+ */
+class SynchronizedFileLinesContextFactory implements FileLinesContextFactory {
+
+  private final FileLinesContextFactory delegate;
+
+  public SynchronizedFileLinesContextFactory(FileLinesContextFactory delegate) {
+    this.delegate = delegate;
+  }
+
+  public synchronized FileLinesContext createFor(Resource resource) {
+    return new SynchronizedFileLinesContext(delegate.createFor(resource));
+  }
+
+  private class SynchronizedFileLinesContext implements FileLinesContext {
+
+    private final FileLinesContext delegate;
+
+    public SynchronizedFileLinesContext(FileLinesContext delegate) {
+      this.delegate = delegate;
+    }
+
+    public void setIntValue(String metricKey, int line, int value) {
+      delegate.setIntValue(metricKey, line, value);
+    }
+
+    public Integer getIntValue(String metricKey, int line) {
+      return delegate.getIntValue(metricKey, line);
+    }
+
+    public void setStringValue(String metricKey, int line, String value) {
+      delegate.setStringValue(metricKey, line, value);
+    }
+
+    public String getStringValue(String metricKey, int line) {
+      return delegate.getStringValue(metricKey, line);
+    }
+
+    public void save() {
+      synchronized (SynchronizedFileLinesContextFactory.this) {
+        delegate.save();
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,203 @@
+/*
+ * Sonar C# Plugin :: Core
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.csharp.squid.cache;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
+import com.sonar.csharp.squid.CSharpConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.checks.AnnotationCheckFactory;
+import org.sonar.api.rules.ActiveRule;
+import org.sonar.api.rules.ActiveRuleParam;
+import org.sonar.api.utils.SonarException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-disk cache of the analysis results of the C# files, used to avoid parsing again the files which did not change since the previous
+ * analysis. A file is considered unchanged when its content has the same digest. The whole cache is discarded as soon as the fingerprint
+ * of the analysis (charset, parser configuration, active rules...) changes.
+ */
+public final class AnalysisCache {
+
+  /**
+   * Version of the results stored in the cache. The jars carry no version in their manifest, so it must be incremented by hand whenever
+   * a change of the plugin, of the C# grammar or of the checks changes the measures or the violations of a file.
+   */
+  static final int VERSION = 1;
+
+  private static final Logger LOG = LoggerFactory.getLogger(AnalysisCache.class);
+
+  private final File cacheFile;
+  private final String fingerprint;
+  private final Map<String, Entry> previousEntries;
+  private final Map<String, Entry> entries = Maps.newHashMap();
+  private final Map<String, byte[]> digests = Maps.newHashMap();
+
+  private AnalysisCache(File cacheFile, String fingerprint, Map<String, Entry> previousEntries) {
+    this.cacheFile = cacheFile;
+    this.fingerprint = fingerprint;
+    this.previousEntries = previousEntries;
+  }
+
+  /**
+   * Loads the cache stored in the given file, if any and if it was created with the same fingerprint.
+   */
+  @SuppressWarnings("unchecked")
+  public static AnalysisCache load(File cacheFile, String fingerprint) {
+    Map<String, Entry> previousEntries = Maps.newHashMap();
+    if (cacheFile.isFile()) {
+      ObjectInputStream in = null;
+      try {
+        in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+        if (fingerprint.equals(in.readObject())) {
+          previousEntries = (Map<String, Entry>) in.readObject();
+        } else {
+          LOG.info("The analysis configuration has changed: all the C# files will be analysed.");
+        }
+      } catch (IOException e) {
+        LOG.warn("Unable to read the C# analysis cache " + cacheFile.getAbsolutePath() + ": all the C# files will be analysed.", e);
+      } catch (ClassNotFoundException e) {
+        LOG.warn("Unable to read the C# analysis cache " + cacheFile.getAbsolutePath() + ": all the C# files will be analysed.", e);
+      } finally {
+        Closeables.closeQuietly(in);
+      }
+    }
+    return new AnalysisCache(cacheFile, fingerprint, previousEntries);
+  }
+
+  /**
+   * Computes the fingerprint of an analysis: version of the cache, parser configuration, and active rules with their parameters.
+   *
+   * @param generatedCode
+   *          how the generated files are detected and analysed
+   */
+  public static String createFingerprint(CSharpConfiguration conf, String generatedCode, AnnotationCheckFactory annotationCheckFactory) {
+    return createFingerprint(VERSION, conf, generatedCode, annotationCheckFactory);
+  }
+
+  static String createFingerprint(int version, CSharpConfiguration conf, String generatedCode, AnnotationCheckFactory annotationCheckFactory) {
+    List<String> rules = Lists.newArrayList();
+    for (Object check : annotationCheckFactory.getChecks()) {
+      ActiveRule activeRule = annotationCheckFactory.getActiveRule(check);
+      StringBuilder rule = new StringBuilder(check.getClass().getName()).append(':').append(activeRule.getRuleKey());
+      List<String> params = Lists.newArrayList();
+      for (ActiveRuleParam param : activeRule.getActiveRuleParams()) {
+        params.add(param.getKey() + '=' + param.getValue());
+      }
+      Collections.sort(params);
+      rules.add(rule.append(params).toString());
+    }
+    Collections.sort(rules);
+
+    return new StringBuilder()
+        .append(version).append('|')
+        .append(conf.getCharset().name()).append('|')
+        .append(conf.getIgnoreHeaderComments()).append('|')
+        .append(conf.getErrorRecovery()).append('|')
+        .append(conf.getPreprocessorSymbols()).append('|')
+        .append(conf.getMaxParsedFileSize()).append('|')
+        .append(conf.getMaxParsedFileLines()).append('|')
+        .append(conf.getMaxParsedFileTokens()).append('|')
+        .append(generatedCode).append('|')
+        .append(rules)
+        .toString();
+  }
+
+  /**
+   * @return the result of the previous analysis of the file, or null if the file is unknown or has changed since then
+   */
+  public CachedFile get(File file) {
+    Entry entry = previousEntries.get(file.getAbsolutePath());
+    if (entry != null && Arrays.equals(entry.digest, digest(file))) {
+      entries.put(file.getAbsolutePath(), entry);
+      return entry.cachedFile;
+    }
+    return null;
+  }
+
+  public void put(File file, CachedFile cachedFile) {
+    entries.put(file.getAbsolutePath(), new Entry(digest(file), cachedFile));
+  }
+
+  /**
+   * Writes the files retrieved or put during this analysis: the ones which were not analysed are forgotten.
+   */
+  public void save() {
+    ObjectOutputStream out = null;
+    try {
+      Files.createParentDirs(cacheFile);
+      out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFile)));
+      out.writeObject(fingerprint);
+      out.writeObject(entries);
+    } catch (IOException e) {
+      LOG.warn("Unable to write the C# analysis cache " + cacheFile.getAbsolutePath(), e);
+    } finally {
+      Closeables.closeQuietly(out);
+    }
+  }
+
+  private byte[] digest(File file) {
+    byte[] digest = digests.get(file.getAbsolutePath());
+    if (digest == null) {
+      try {
+        digest = Files.getDigest(file, MessageDigest.getInstance("SHA-1"));
+      } catch (IOException e) {
+        throw new SonarException("Unable to read the file " + file.getAbsolutePath(), e);
+      } catch (NoSuchAlgorithmException e) {
+        throw new SonarException(e);
+      }
+      digests.put(file.getAbsolutePath(), digest);
+    }
+    return digest;
+  }
+
+  private static final class Entry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final byte[] digest;
+    private final CachedFile cachedFile;
+
+    Entry(byte[] digest, CachedFile cachedFile) {
+      this.digest = digest;
+      this.cachedFile = cachedFile;
+    }
+
+  }
+
+}
@@ -0,0 +1,216 @@
+/*
+ * Sonar C# Plugin :: Core
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.csharp.squid.cache;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.sonar.csharp.squid.api.CSharpMetric;
+import com.sonar.csharp.squid.api.source.SourceClass;
+import com.sonar.csharp.squid.api.source.SourceMember;
+import com.sonar.csharp.squid.api.source.SourceType;
+import org.sonar.squid.api.CheckMessage;
+import org.sonar.squid.api.SourceCode;
+import org.sonar.squid.api.SourceFile;
+import org.sonar.squid.api.SourceProject;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Result of the analysis of a C# file, as stored in the {@link AnalysisCache}: the Squid tree of the file with its measures, the check
+ * messages (identified by the key of their rule), the NoSonar lines and the line values that were saved through a
+ * {@link org.sonar.api.measures.FileLinesContext}.
+ */
+public class CachedFile implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final Node file;
+  private final Set<Integer> noSonarTagLines;
+  private final List<Message> messages = Lists.newArrayList();
+  private final Map<String, Map<Integer, Integer>> intLineValues = Maps.newHashMap();
+  private final Map<String, Map<Integer, String>> stringLineValues = Maps.newHashMap();
+
+  private CachedFile(Node file, Set<Integer> noSonarTagLines) {
+    this.file = file;
+    this.noSonarTagLines = noSonarTagLines;
+  }
+
+  /**
+   * Takes a snapshot of the tree of a Squid file.
+   * 
+   * @return the snapshot, or null if the tree contains some source code that can not be cached
+   */
+  public static CachedFile of(SourceFile squidFile) {
+    Node node = Node.of(squidFile);
+    return node == null ? null : new CachedFile(node, Sets.newHashSet(squidFile.getNoSonarTagLines()));
+  }
+
+  public void addMessage(String ruleKey, Integer line, String text) {
+    messages.add(new Message(ruleKey, line, text));
+  }
+
+  public void setLineValues(LineValues lineValues) {
+    intLineValues.putAll(lineValues.getIntValues());
+    stringLineValues.putAll(lineValues.getStringValues());
+  }
+
+  public LineValues getLineValues() {
+    return new LineValues(intLineValues, stringLineValues);
+  }
+
+  /**
+   * Rebuilds the Squid tree of the file under the given project, which measures are updated accordingly.
+   * 
+   * @param checksByRuleKey
+   *          the checks to which the restored messages are attached; messages of unknown rules are dropped
+   */
+  public SourceFile restore(SourceProject project, Map<String, Object> checksByRuleKey) {
+    SourceFile squidFile = (SourceFile) file.restore(project);
+    squidFile.addNoSonarTagLines(noSonarTagLines);
+    for (Message message : messages) {
+      Object check = checksByRuleKey.get(message.ruleKey);
+      if (check != null) {
+        CheckMessage checkMessage = new CheckMessage(check, message.text);
+        if (message.line != null) {
+          checkMessage.setLine(message.line);
+        }
+        squidFile.log(checkMessage);
+      }
+    }
+
+    for (CSharpMetric metric : CSharpMetric.values()) {
+      if (!metric.isCalculatedMetric() && metric.isThereAggregationFormula()) {
+        project.add(metric, squidFile);
+      }
+    }
+    return squidFile;
+  }
+
+  private static final class Node implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private enum Kind {
+      FILE, CLASS, TYPE, MEMBER
+    }
+
+    private final Kind kind;
+    private final String key;
+    private final String name;
+    private final int startAtLine;
+    private final int endAtLine;
+    private final double[] measures = new double[CSharpMetric.values().length];
+    private final List<Node> children = Lists.newArrayList();
+
+    private Node(Kind kind, SourceCode sourceCode) {
+      this.kind = kind;
+      this.key = sourceCode.getKey();
+      this.name = sourceCode.getName();
+      this.startAtLine = sourceCode.getStartAtLine();
+      this.endAtLine = sourceCode.getEndAtLine();
+      for (CSharpMetric metric : CSharpMetric.values()) {
+        measures[metric.ordinal()] = sourceCode.getDouble(metric);
+      }
+    }
+
+    static Node of(SourceCode sourceCode) {
+      Kind kind = kindOf(sourceCode);
+      if (kind == null) {
+        return null;
+      }
+      Node node = new Node(kind, sourceCode);
+      if (sourceCode.hasChildren()) {
+        for (SourceCode child : sourceCode.getChildren()) {
+          Node childNode = of(child);
+          if (childNode == null) {
+            return null;
+          }
+          node.children.add(childNode);
+        }
+      }
+      return node;
+    }
+
+    private static Kind kindOf(SourceCode sourceCode) {
+      Class<?> clazz = sourceCode.getClass();
+      if (clazz == SourceFile.class) {
+        return Kind.FILE;
+      } else if (clazz == SourceClass.class) {
+        return Kind.CLASS;
+      } else if (clazz == SourceType.class) {
+        return Kind.TYPE;
+      } else if (clazz == SourceMember.class) {
+        return Kind.MEMBER;
+      }
+      return null;
+    }
+
+    SourceCode restore(SourceCode parent) {
+      SourceCode sourceCode = create(parent);
+      parent.addChild(sourceCode);
+      sourceCode.setStartAtLine(startAtLine);
+      sourceCode.setEndAtLine(endAtLine);
+      for (CSharpMetric metric : CSharpMetric.values()) {
+        if (measures[metric.ordinal()] != 0) {
+          sourceCode.setMeasure(metric, measures[metric.ordinal()]);
+        }
+      }
+      for (Node child : children) {
+        child.restore(sourceCode);
+      }
+      return sourceCode;
+    }
+
+    private SourceCode create(SourceCode parent) {
+      switch (kind) {
+        case FILE:
+          return new SourceFile(key, name);
+        case CLASS:
+          return new SourceClass(key, name);
+        case TYPE:
+          return new SourceType(key, name);
+        default:
+          return new SourceMember((SourceType) parent, name, startAtLine);
+      }
+    }
+
+  }
+
+  private static final class Message implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String ruleKey;
+    private final Integer line;
+    private final String text;
+
+    Message(String ruleKey, Integer line, String text) {
+      this.ruleKey = ruleKey;
+      this.line = line;
+      this.text = text;
+    }
+
+  }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Sonar C# Plugin :: Core
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.csharp.squid.cache;
+
+import com.google.common.collect.Maps;
+import org.sonar.api.measures.FileLinesContext;
+
+import java.util.Map;
+
+/**
+ * Values set on the lines of a file through a {@link FileLinesContext}, by metric key.
+ */
+public class LineValues {
+
+  private final Map<String, Map<Integer, Integer>> intValues;
+  private final Map<String, Map<Integer, String>> stringValues;
+
+  public LineValues() {
+    this(Maps.<String, Map<Integer, Integer>> newHashMap(), Maps.<String, Map<Integer, String>> newHashMap());
+  }
+
+  LineValues(Map<String, Map<Integer, Integer>> intValues, Map<String, Map<Integer, String>> stringValues) {
+    this.intValues = intValues;
+    this.stringValues = stringValues;
+  }
+
+  public void setIntValue(String metricKey, int line, int value) {
+    valuesOf(intValues, metricKey).put(line, value);
+  }
+
+  public void setStringValue(String metricKey, int line, String value) {
+    valuesOf(stringValues, metricKey).put(line, value);
+  }
+
+  Map<String, Map<Integer, Integer>> getIntValues() {
+    return intValues;
+  }
+
+  Map<String, Map<Integer, String>> getStringValues() {
+    return stringValues;
+  }
+
+  /**
+   * Sets all the values on the given context and saves it.
+   */
+  public void saveTo(FileLinesContext fileLinesContext) {
+    for (Map.Entry<String, Map<Integer, Integer>> metricValues : intValues.entrySet()) {
+      for (Map.Entry<Integer, Integer> lineValue : metricValues.getValue().entrySet()) {
+        fileLinesContext.setIntValue(metricValues.getKey(), lineValue.getKey(), lineValue.getValue());
+      }
+    }
+    for (Map.Entry<String, Map<Integer, String>> metricValues : stringValues.entrySet()) {
+      for (Map.Entry<Integer, String> lineValue : metricValues.getValue().entrySet()) {
+        fileLinesContext.setStringValue(metricValues.getKey(), lineValue.getKey(), lineValue.getValue());
+      }
+    }
+    fileLinesContext.save();
+  }
+
+  private static <T> Map<Integer, T> valuesOf(Map<String, Map<Integer, T>> values, String metricKey) {
+    Map<Integer, T> metricValues = values.get(metricKey);
+    if (metricValues == null) {
+      metricValues = Maps.newHashMap();
+      values.put(metricKey, metricValues);
+    }
+    return metricValues;
+  }
+
+}
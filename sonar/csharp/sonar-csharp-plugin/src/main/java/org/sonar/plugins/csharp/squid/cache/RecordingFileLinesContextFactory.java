@@ -0,0 +1,89 @@
+/*
+ * Sonar C# Plugin :: Core
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.csharp.squid.cache;
+
+import com.google.common.collect.Maps;
+import org.sonar.api.measures.FileLinesContext;
+import org.sonar.api.measures.FileLinesContextFactory;
+import org.sonar.api.resources.Resource;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Keeps track of the line values saved through the contexts it creates, so that they can be stored in the {@link AnalysisCache}.
+ */
+public class RecordingFileLinesContextFactory implements FileLinesContextFactory {
+
+  private final FileLinesContextFactory delegate;
+  private final Map<String, LineValues> lineValuesByResourceKey = Collections.synchronizedMap(Maps.<String, LineValues> newHashMap());
+
+  public RecordingFileLinesContextFactory(FileLinesContextFactory delegate) {
+    this.delegate = delegate;
+  }
+
+  public FileLinesContext createFor(Resource resource) {
+    LineValues lineValues = new LineValues();
+    lineValuesByResourceKey.put(resource.getKey(), lineValues);
+    return new RecordingFileLinesContext(delegate.createFor(resource), lineValues);
+  }
+
+  /**
+   * @return the values saved for the given resource, or null if no context was created for it
+   */
+  public LineValues getLineValues(Resource resource) {
+    return lineValuesByResourceKey.get(resource.getKey());
+  }
+
+  private static class RecordingFileLinesContext implements FileLinesContext {
+
+    private final FileLinesContext delegate;
+    private final LineValues lineValues;
+
+    public RecordingFileLinesContext(FileLinesContext delegate, LineValues lineValues) {
+      this.delegate = delegate;
+      this.lineValues = lineValues;
+    }
+
+    public void setIntValue(String metricKey, int line, int value) {
+      delegate.setIntValue(metricKey, line, value);
+      lineValues.setIntValue(metricKey, line, value);
+    }
+
+    public Integer getIntValue(String metricKey, int line) {
+      return delegate.getIntValue(metricKey, line);
+    }
+
+    public void setStringValue(String metricKey, int line, String value) {
+      delegate.setStringValue(metricKey, line, value);
+      lineValues.setStringValue(metricKey, line, value);
+    }
+
+    public String getStringValue(String metricKey, int line) {
+      return delegate.getStringValue(metricKey, line);
+    }
+
+    public void save() {
+      delegate.save();
+    }
+
+  }
+
+}
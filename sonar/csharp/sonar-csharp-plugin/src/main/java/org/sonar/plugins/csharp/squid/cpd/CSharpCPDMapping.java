@@ -19,35 +19,65 @@
  */
 package org.sonar.plugins.csharp.squid.cpd;
 
+import com.google.common.collect.Lists;
 import net.sourceforge.pmd.cpd.Tokenizer;
 import org.sonar.api.batch.AbstractCpdMapping;
 import org.sonar.api.config.Settings;
+import org.sonar.api.resources.InputFile;
 import org.sonar.api.resources.Language;
 import org.sonar.api.resources.Project;
 import org.sonar.plugins.csharp.api.CSharp;
 import org.sonar.plugins.csharp.squid.CSharpSquidConstants;
 
+import java.io.File;
 import java.nio.charset.Charset;
+import java.util.List;
 
 public class CSharpCPDMapping extends AbstractCpdMapping {
 
   private final CSharp csharp;
+  private final Project project;
   private final boolean ignoreLiterals;
   private final Charset charset;
+  private final int threads;
+  private final CSharpCPDTokens squidTokens;
+  private CSharpCPDTokenizer tokenizer;
 
-  public CSharpCPDMapping(CSharp csharp, Project project, Settings settings) {
+  public CSharpCPDMapping(CSharp csharp, Project project, Settings settings, CSharpCPDTokens squidTokens) {
     super();
     this.csharp = csharp;
+    this.project = project;
+    this.squidTokens = squidTokens;
     this.charset = project.getFileSystem().getSourceCharset();
     ignoreLiterals = settings.getBoolean(CSharpSquidConstants.CPD_IGNORE_LITERALS_PROPERTY);
+    threads = settings.getInt(CSharpSquidConstants.CPD_THREADS_PROPERTY);
   }
 
   public Language getLanguage() {
     return csharp;
   }
 
+  /**
+   * The tokenizer is created on the first call only, as building its lexer and parser is far more expensive than tokenizing a file. It
+   * serves the tokens retained by the Squid sensor, if any, and, when several threads are configured, the tokens of the other files are
+   * lexed in parallel beforehand.
+   */
   public Tokenizer getTokenizer() {
-    return new CSharpCPDTokenizer(ignoreLiterals, charset);
+    if (tokenizer == null) {
+      if (threads > 1) {
+        new CSharpCPDParallelLexer(ignoreLiterals, charset, squidTokens, threads).lex(getFiles());
+      }
+      tokenizer = new CSharpCPDTokenizer(ignoreLiterals, charset, squidTokens);
+    }
+    return tokenizer;
+  }
+
+  private List<File> getFiles() {
+    List<File> files = Lists.newArrayList();
+    for (InputFile inputFile : project.getFileSystem().mainFiles(csharp.getKey())) {
+      files.add(inputFile.getFile());
+    }
+    return files;
   }
 
 }
@@ -0,0 +1,137 @@
+/*
+ * Sonar C# Plugin :: Core
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.csharp.squid.cpd;
+
+import com.google.common.collect.Lists;
+import com.sonar.sslr.impl.Lexer;
+import org.sonar.squid.api.AnalysisException;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Lexes C# files ahead of the CPD engine with several threads, each one having its own lexer, and retains their tokens in
+ * {@link CSharpCPDTokens}. The engine still asks {@link CSharpCPDTokenizer} for the files one after the other, in its own order, so its
+ * results are the same as the ones of a sequential tokenization.
+ */
+public class CSharpCPDParallelLexer {
+
+  private final boolean ignoreLiterals;
+  private final Charset charset;
+  private final CSharpCPDTokens cpdTokens;
+  private final int threads;
+
+  public CSharpCPDParallelLexer(boolean ignoreLiterals, Charset charset, CSharpCPDTokens cpdTokens, int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("The number of threads must be greater than 0, but was " + threads + ".");
+    }
+    this.ignoreLiterals = ignoreLiterals;
+    this.charset = charset;
+    this.cpdTokens = cpdTokens;
+    this.threads = threads;
+  }
+
+  /**
+   * Lexes the files whose tokens are not retained yet, the biggest ones first so that the threads end at roughly the same time.
+   */
+  public void lex(Collection<File> files) {
+    List<File> sortedFiles = Lists.newArrayList();
+    for (File file : files) {
+      if (!cpdTokens.contains(file.getAbsolutePath())) {
+        sortedFiles.add(file);
+      }
+    }
+    if (sortedFiles.isEmpty()) {
+      return;
+    }
+    Collections.sort(sortedFiles, new Comparator<File>() {
+
+      public int compare(File file1, File file2) {
+        long length1 = file1.length();
+        long length2 = file2.length();
+        return length1 > length2 ? -1 : (length1 == length2 ? 0 : 1);
+      }
+
+    });
+    Queue<File> queue = new ConcurrentLinkedQueue<File>(sortedFiles);
+
+    int workers = Math.min(threads, sortedFiles.size());
+    ExecutorService executor = Executors.newFixedThreadPool(workers);
+    try {
+      List<Future<Void>> results = Lists.newArrayList();
+      for (int i = 0; i < workers; i++) {
+        results.add(executor.submit(new Worker(queue)));
+      }
+      for (Future<Void> result : results) {
+        waitFor(result);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void waitFor(Future<Void> result) {
+    try {
+      result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AnalysisException("Interrupted while waiting for the C# files to be tokenized", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new AnalysisException("Unable to tokenize the C# files", e.getCause());
+    }
+  }
+
+  private class Worker implements Callable<Void> {
+
+    private final Queue<File> queue;
+
+    public Worker(Queue<File> queue) {
+      this.queue = queue;
+    }
+
+    public Void call() {
+      Lexer lexer = CSharpCPDTokenizer.createLexer(charset);
+      FileTokensBuilder fileTokensBuilder = new FileTokensBuilder();
+      ImageDictionary images = cpdTokens.getImages();
+      File file = queue.poll();
+      while (file != null) {
+        cpdTokens.put(file.getAbsolutePath(), CSharpCPDTokenizer.lex(lexer, file, images, ignoreLiterals, fileTokensBuilder));
+        file = queue.poll();
+      }
+      return null;
+    }
+
+  }
+
+}
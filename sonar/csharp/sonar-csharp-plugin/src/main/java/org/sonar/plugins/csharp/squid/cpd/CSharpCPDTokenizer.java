@@ -34,33 +34,70 @@ import java.nio.charset.Charset;
 
 import static com.sonar.sslr.api.GenericTokenType.EOF;
 
+/**
+ * Serves the tokens retained in {@link CSharpCPDTokens} when there are some for the file, and lexes the file otherwise. Either way, the CPD
+ * tokens with the same image share the string of the {@link ImageDictionary}, instead of each one holding a copy of its own. The lexer, and
+ * the parser of its {@link IgnoreUsingDirectivePreprocessor}, are built on the first file to lex and then reused for all the files: an
+ * instance must therefore not be shared between threads.
+ */
 public class CSharpCPDTokenizer implements Tokenizer {
 
   private final boolean ignoreLiterals;
   private final Charset charset;
+  private final CSharpCPDTokens retainedTokens;
+  private final ImageDictionary images;
+  private final FileTokensBuilder fileTokensBuilder = new FileTokensBuilder();
+  private Lexer lexer;
 
   public CSharpCPDTokenizer(boolean ignoreLiterals, Charset charset) {
-    this.charset = charset;
+    this(ignoreLiterals, charset, null);
+  }
+
+  /**
+   * @param retainedTokens
+   *          the tokens retained by the Squid sensor or lexed ahead, or null to lex all the files
+   */
+  public CSharpCPDTokenizer(boolean ignoreLiterals, Charset charset, CSharpCPDTokens retainedTokens) {
     this.ignoreLiterals = ignoreLiterals;
+    this.charset = charset;
+    this.retainedTokens = retainedTokens;
+    this.images = retainedTokens == null ? new ImageDictionary() : retainedTokens.getImages();
   }
 
   public final void tokenize(SourceCode source, Tokens cpdTokens) {
+    String fileName = source.getFileName();
+    CSharpCPDTokens.FileTokens fileTokens = retainedTokens == null ? null : retainedTokens.take(fileName);
+    if (fileTokens == null) {
+      if (lexer == null) {
+        lexer = createLexer(charset);
+      }
+      fileTokens = lex(lexer, new File(fileName), images, ignoreLiterals, fileTokensBuilder);
+    }
+
+    for (int i = 0; i < fileTokens.size(); i++) {
+      cpdTokens.add(new TokenEntry(images.getImage(fileTokens.getImageId(i)), fileName, fileTokens.getLine(i)));
+    }
+    cpdTokens.add(TokenEntry.getEOF());
+  }
+
+  static Lexer createLexer(Charset charset) {
     CSharpConfiguration conf = new CSharpConfiguration(charset);
-    Lexer lexer = CSharpLexer.create(conf, new IgnoreUsingDirectivePreprocessor(conf));
+    return CSharpLexer.create(conf, new IgnoreUsingDirectivePreprocessor(conf));
+  }
 
-    String fileName = source.getFileName();
-    for (Token token : lexer.lex(new File(fileName))) {
+  static CSharpCPDTokens.FileTokens lex(Lexer lexer, File file, ImageDictionary images, boolean ignoreLiterals,
+      FileTokensBuilder fileTokensBuilder) {
+    fileTokensBuilder.clear();
+    for (Token token : lexer.lex(file)) {
       if (token.getType() == EOF) {
         break;
       }
-
-      TokenEntry cpdToken = new TokenEntry(getTokenImage(token), fileName, token.getLine());
-      cpdTokens.add(cpdToken);
+      fileTokensBuilder.add(images.getId(getTokenImage(token, ignoreLiterals)), token.getLine());
     }
-    cpdTokens.add(TokenEntry.getEOF());
+    return fileTokensBuilder.build();
   }
 
-  private String getTokenImage(Token token) {
+  static String getTokenImage(Token token, boolean ignoreLiterals) {
     if (ignoreLiterals && token.getType() == CSharpTokenType.STRING_LITERAL) {
       return CSharpTokenType.STRING_LITERAL.getValue();
     }
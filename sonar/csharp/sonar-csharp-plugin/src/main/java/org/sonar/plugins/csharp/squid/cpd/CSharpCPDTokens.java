@@ -0,0 +1,94 @@
+/*
+ * Sonar C# Plugin :: Core
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.csharp.squid.cpd;
+
+import com.google.common.collect.Maps;
+import org.sonar.api.BatchExtension;
+
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Token images of the C# files, as retained by the Squid sensor (see {@link CSharpCPDTokensVisitor}) so that {@link CSharpCPDTokenizer}
+ * does not have to lex the files a second time, or as lexed ahead by {@link CSharpCPDParallelLexer}. The images of a file are handed out
+ * once only, and then released.
+ */
+public class CSharpCPDTokens implements BatchExtension {
+
+  private final ConcurrentMap<String, FileTokens> tokensByPath = Maps.newConcurrentMap();
+  private final ImageDictionary images = new ImageDictionary();
+
+  /**
+   * The dictionary of the images of the tokens retained for all the files.
+   */
+  public ImageDictionary getImages() {
+    return images;
+  }
+
+  /**
+   * Thread-safe, as the files are scanned in parallel when several Squid threads are configured.
+   */
+  public void put(String path, FileTokens fileTokens) {
+    tokensByPath.put(path, fileTokens);
+  }
+
+  /**
+   * @return the tokens of the file, or null if the Squid sensor did not retain them
+   */
+  public FileTokens take(String path) {
+    return tokensByPath.remove(path);
+  }
+
+  public boolean contains(String path) {
+    return tokensByPath.containsKey(path);
+  }
+
+  public boolean isEmpty() {
+    return tokensByPath.isEmpty();
+  }
+
+  /**
+   * The identifier of the CPD image, in the {@link ImageDictionary}, and the line of each token of a file, the using directives and the
+   * end of file excluded.
+   */
+  public static final class FileTokens {
+
+    private final int[] imageIds;
+    private final int[] lines;
+
+    public FileTokens(int[] imageIds, int[] lines) {
+      this.imageIds = imageIds;
+      this.lines = lines;
+    }
+
+    public int size() {
+      return imageIds.length;
+    }
+
+    public int getImageId(int i) {
+      return imageIds[i];
+    }
+
+    public int getLine(int i) {
+      return lines[i];
+    }
+
+  }
+
+}
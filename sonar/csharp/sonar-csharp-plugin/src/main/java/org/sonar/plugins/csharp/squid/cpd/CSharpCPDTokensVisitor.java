@@ -0,0 +1,108 @@
+/*
+ * Sonar C# Plugin :: Core
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.csharp.squid.cpd;
+
+import com.sonar.csharp.squid.parser.CSharpGrammar;
+import com.sonar.sslr.api.AstAndTokenVisitor;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
+import com.sonar.sslr.squid.SquidAstVisitor;
+
+/**
+ * Retains the CPD image of the tokens of each file scanned by Squid, with the same normalization as {@link CSharpCPDTokenizer}: the using
+ * directives are left out, the preprocessor directives are kept and, if required, the string literals are replaced by a single image.
+ */
+public class CSharpCPDTokensVisitor extends SquidAstVisitor<Grammar> implements AstAndTokenVisitor {
+
+  private final CSharpCPDTokens cpdTokens;
+  private final boolean ignoreLiterals;
+  private final FileTokensBuilder fileTokens = new FileTokensBuilder();
+  private boolean parsed;
+  private Token lastToken;
+  private Token lastUsingDirectiveToken;
+
+  public CSharpCPDTokensVisitor(CSharpCPDTokens cpdTokens, boolean ignoreLiterals) {
+    this.cpdTokens = cpdTokens;
+    this.ignoreLiterals = ignoreLiterals;
+  }
+
+  @Override
+  public void init() {
+    subscribeTo(CSharpGrammar.USING_DIRECTIVE);
+  }
+
+  @Override
+  public void visitFile(AstNode astNode) {
+    fileTokens.clear();
+    lastToken = null;
+    lastUsingDirectiveToken = null;
+    // a file which could not be parsed, or which was not, is left to the CPD tokenizer: its using directives are not known
+    parsed = astNode != null && !astNode.hasDirectChildren(CSharpGrammar.UNPARSED_CODE);
+  }
+
+  @Override
+  public void visitNode(AstNode astNode) {
+    // the first token of the directive has already been visited if it is also the first token of the parent node
+    if (astNode.getToken() == lastToken) {
+      fileTokens.removeLast();
+    }
+    lastUsingDirectiveToken = astNode.getLastToken();
+  }
+
+  public void visitToken(Token token) {
+    // the preprocessor directives, as well as the regions left out by the conditional compilation, are tokens for the CPD lexer, which
+    // has no StandardPreprocessorLinePreprocessor nor ConditionalCompilationPreprocessor
+    for (Trivia trivia : token.getTrivia()) {
+      if (trivia.isSkippedText()) {
+        for (Token skippedToken : trivia.getTokens()) {
+          add(skippedToken);
+        }
+      }
+    }
+
+    if (lastUsingDirectiveToken != null) {
+      if (token == lastUsingDirectiveToken) {
+        lastUsingDirectiveToken = null;
+      }
+      return;
+    }
+    if (token.getType() != GenericTokenType.EOF) {
+      add(token);
+      lastToken = token;
+    }
+  }
+
+  private void add(Token token) {
+    fileTokens.add(cpdTokens.getImages().getId(CSharpCPDTokenizer.getTokenImage(token, ignoreLiterals)), token.getLine());
+  }
+
+  @Override
+  public void leaveFile(AstNode astNode) {
+    if (parsed) {
+      cpdTokens.put(getContext().getFile().getAbsolutePath(), fileTokens.build());
+    }
+    lastToken = null;
+    lastUsingDirectiveToken = null;
+  }
+
+}
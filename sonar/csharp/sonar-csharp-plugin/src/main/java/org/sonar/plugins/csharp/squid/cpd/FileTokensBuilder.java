@@ -0,0 +1,57 @@
+/*
+ * Sonar C# Plugin :: Core
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.csharp.squid.cpd;
+
+import java.util.Arrays;
+
+/**
+ * Accumulates the tokens of a file into growing arrays, which are reused from one file to the next.
+ */
+final class FileTokensBuilder {
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private int[] imageIds = new int[INITIAL_CAPACITY];
+  private int[] lines = new int[INITIAL_CAPACITY];
+  private int size;
+
+  void add(int imageId, int line) {
+    if (size == imageIds.length) {
+      imageIds = Arrays.copyOf(imageIds, size * 2);
+      lines = Arrays.copyOf(lines, size * 2);
+    }
+    imageIds[size] = imageId;
+    lines[size] = line;
+    size++;
+  }
+
+  void removeLast() {
+    size--;
+  }
+
+  void clear() {
+    size = 0;
+  }
+
+  CSharpCPDTokens.FileTokens build() {
+    return new CSharpCPDTokens.FileTokens(Arrays.copyOf(imageIds, size), Arrays.copyOf(lines, size));
+  }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Sonar C# Plugin :: Core
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.csharp.squid.cpd;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Gives an int identifier to each distinct token image, so that the tokens of a file can be kept as an array of identifiers, and so that
+ * all the CPD tokens with the same image share a single string. Thread-safe, as the files are scanned in parallel when several Squid
+ * threads are configured.
+ */
+public final class ImageDictionary {
+
+  private final ConcurrentMap<String, Integer> ids = Maps.newConcurrentMap();
+  private final List<String> images = Lists.newArrayList();
+
+  public int getId(String image) {
+    Integer id = ids.get(image);
+    if (id == null) {
+      synchronized (this) {
+        id = ids.get(image);
+        if (id == null) {
+          id = images.size();
+          images.add(image);
+          ids.put(image, id);
+        }
+      }
+    }
+    return id;
+  }
+
+  public synchronized String getImage(int id) {
+    return images.get(id);
+  }
+
+  public synchronized int size() {
+    return images.size();
+  }
+
+}
@@ -19,9 +19,13 @@
  */
 package org.sonar.plugins.csharp.squid;
 
+import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Matchers;
 import org.mockito.Mockito;
 import org.sonar.api.batch.ResourceCreationLock;
@@ -41,52 +45,226 @@ import org.sonar.api.resources.Resource;
 import org.sonar.plugins.csharp.api.CSharp;
 import org.sonar.plugins.csharp.api.CSharpConstants;
 import org.sonar.plugins.csharp.core.CSharpCorePlugin;
+import org.sonar.plugins.csharp.squid.cpd.CSharpCPDTokens;
 import org.sonar.plugins.dotnet.api.DotNetConfiguration;
+import org.sonar.plugins.dotnet.api.DotNetConstants;
+import org.sonar.plugins.dotnet.api.microsoft.BuildConfiguration;
 import org.sonar.plugins.dotnet.api.microsoft.MicrosoftWindowsEnvironment;
+import org.sonar.plugins.dotnet.api.microsoft.ModelFactory;
+import org.sonar.plugins.dotnet.api.microsoft.VisualStudioProject;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.charset.Charset;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class CSharpSquidSensorTest {
 
+  private static final File CONDITIONAL_COMPILATION_FILE = new File("src/test/resources/conditionalCompilation/Logger.cs");
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Settings settings;
+  private FileLinesContext flc;
   private CSharpSquidSensor sensor;
+  private MicrosoftWindowsEnvironment microsoftWindowsEnvironment;
+  private CSharpCPDTokens cpdTokens;
 
   @Before
   public void init() {
-    DotNetConfiguration dotNetConfiguration = new DotNetConfiguration(new Settings(new PropertyDefinitions(CSharpCorePlugin.class)));
+    settings = new Settings(new PropertyDefinitions(CSharpCorePlugin.class));
+    flc = mock(FileLinesContext.class);
+    sensor = createSensor();
+  }
+
+  private CSharpSquidSensor createSensor() {
+    DotNetConfiguration dotNetConfiguration = new DotNetConfiguration(settings);
     CSharp language = new CSharp(dotNetConfiguration);
     CSharpResourcesBridge cSharpResourcesBridge = mock(CSharpResourcesBridge.class);
     ResourceCreationLock resourceCreationLock = mock(ResourceCreationLock.class);
-    MicrosoftWindowsEnvironment microsoftWindowsEnvironment = mock(MicrosoftWindowsEnvironment.class);
+    microsoftWindowsEnvironment = mock(MicrosoftWindowsEnvironment.class);
     RulesProfile profile = mock(RulesProfile.class);
     NoSonarFilter noSonarFilter = mock(NoSonarFilter.class);
     FileLinesContextFactory fileLinesContextFactory = mock(FileLinesContextFactory.class);
-    FileLinesContext flc = mock(FileLinesContext.class);
     when(fileLinesContextFactory.createFor(Matchers.any(Resource.class))).thenReturn(flc);
-    sensor = new CSharpSquidSensor(dotNetConfiguration, language, cSharpResourcesBridge, resourceCreationLock,
-        microsoftWindowsEnvironment, profile, noSonarFilter, fileLinesContextFactory);
+    cpdTokens = new CSharpCPDTokens();
+    return new CSharpSquidSensor(dotNetConfiguration, language, cSharpResourcesBridge, resourceCreationLock,
+        microsoftWindowsEnvironment, profile, noSonarFilter, fileLinesContextFactory, cpdTokens);
   }
 
   @Test
   public void analyse() {
-    ProjectFileSystem projectFileSystem = mock(ProjectFileSystem.class);
-    when(projectFileSystem.getSourceCharset()).thenReturn(Charset.forName("UTF-8"));
-    InputFile inputFile = InputFileUtils.create(
-        new File("src/test/resources/"),
-        new File("src/test/resources/CSharpSquidSensor.cs"));
-    when(projectFileSystem.mainFiles(CSharpConstants.LANGUAGE_KEY)).thenReturn(ImmutableList.of(inputFile));
-    when(projectFileSystem.getSourceDirs()).thenReturn(ImmutableList.of(new File("src/test/resources/")));
+    analyseAndVerifyMeasures();
+  }
 
-    Project project = mock(Project.class);
-    when(project.getFileSystem()).thenReturn(projectFileSystem);
+  @Test
+  public void analyseWithSeveralThreads() {
+    settings.setProperty(CSharpSquidConstants.SQUID_THREADS_PROPERTY, 2);
+    analyseAndVerifyMeasures();
+  }
 
-    SensorContext context = mock(SensorContext.class);
+  @Test
+  public void analyseIncrementally() throws IOException {
+    settings.setProperty(CSharpSquidConstants.SQUID_INCREMENTAL_PROPERTY, true);
+    settings.setProperty(CSharpSquidConstants.SQUID_PROFILE_PROPERTY, true);
+    analyseAndVerifyMeasures();
+    assertThat(new File(temporaryFolder.getRoot(), CSharpSquidConstants.SQUID_CACHE_FILE_NAME).isFile(), is(true));
+    assertThat(readProfile(), containsString("CSharpSquidSensor.cs"));
 
-    sensor.analyse(project, context);
+    sensor = createSensor();
+    analyseAndVerifyMeasures();
+    verify(flc, Mockito.times(2)).save();
+    // the measures come from the cache: the file was not parsed again
+    assertThat(readProfile(), not(containsString("CSharpSquidSensor.cs")));
+  }
+
+  @Test
+  public void analyseIncrementallyAChangedFile() throws IOException {
+    settings.setProperty(CSharpSquidConstants.SQUID_INCREMENTAL_PROPERTY, true);
+    settings.setProperty(CSharpSquidConstants.SQUID_PROFILE_PROPERTY, true);
+    File file = new File(temporaryFolder.newFolder("src"), "Logger.cs");
+    Files.copy(CONDITIONAL_COMPILATION_FILE, file);
+    verifyFunctionsAndStatements(analyseProject(file), 3.0, 3.0);
+
+    Files.append("namespace Example { public class Counter { public int Next(int i) { return i + 1; } } }\n", file, Charsets.UTF_8);
+    sensor = createSensor();
+    verifyFunctionsAndStatements(analyseProject(file), 4.0, 4.0);
+    assertThat(readProfile(), containsString("Logger.cs"));
+  }
+
+  @Test
+  public void analyseWithStreaming() {
+    settings.setProperty(CSharpSquidConstants.SQUID_STREAMING_PROPERTY, true);
+    analyseAndVerifyMeasures();
+  }
+
+  @Test
+  public void analyseWithStreamingAndSeveralThreads() {
+    settings.setProperty(CSharpSquidConstants.SQUID_STREAMING_PROPERTY, true);
+    settings.setProperty(CSharpSquidConstants.SQUID_THREADS_PROPERTY, 2);
+    analyseAndVerifyMeasures();
+  }
+
+  @Test
+  public void analyseIncrementallyWithStreaming() throws IOException {
+    settings.setProperty(CSharpSquidConstants.SQUID_STREAMING_PROPERTY, true);
+    analyseIncrementally();
+  }
+
+  @Test
+  public void analyseWithProfiling() {
+    settings.setProperty(CSharpSquidConstants.SQUID_PROFILE_PROPERTY, true);
+    analyseAndVerifyMeasures();
+    assertThat(new File(temporaryFolder.getRoot(), CSharpSquidConstants.SQUID_PROFILE_FILE_NAME).isFile(), is(true));
+  }
+
+  @Test
+  public void analyseWithSelectiveMemoization() {
+    settings.setProperty(CSharpSquidConstants.SQUID_MEMOIZATION_PROPERTY, CSharpSquidConstants.MEMOIZATION_BACKTRACKED_RULES);
+    analyseAndVerifyMeasures();
+  }
+
+  @Test
+  public void analyseWithoutMemoization() {
+    settings.setProperty(CSharpSquidConstants.SQUID_MEMOIZATION_PROPERTY, CSharpSquidConstants.MEMOIZATION_NONE);
+    analyseAndVerifyMeasures();
+  }
+
+  @Test
+  public void analyseWithConditionalCompilation() {
+    settings.setProperty(CSharpSquidConstants.SQUID_CONDITIONAL_COMPILATION_PROPERTY, true);
+    verifyFunctionsAndStatements(analyseProject(CONDITIONAL_COMPILATION_FILE), 1.0, 0.0);
+
+    settings.setProperty(CSharpSquidConstants.SQUID_PREPROCESSOR_SYMBOLS_PROPERTY, "DEBUG,TRACE");
+    sensor = createSensor();
+    verifyFunctionsAndStatements(analyseProject(CONDITIONAL_COMPILATION_FILE), 2.0, 3.0);
+  }
+
+  @Test
+  public void analyseWithConditionalCompilationOfTheBuildConfiguration() throws Exception {
+    settings.setProperty(CSharpSquidConstants.SQUID_CONDITIONAL_COMPILATION_PROPERTY, true);
+    settings.setProperty(DotNetConstants.BUILD_PLATFORM_KEY, BuildConfiguration.DEFAULT_PLATFORM);
+    VisualStudioProject vsProject = ModelFactory.getSolution(new File("src/test/resources/solution/Example/Example.sln"))
+        .getProject("Example.Core");
+
+    settings.setProperty(DotNetConstants.BUILD_CONFIGURATION_KEY, "Release");
+    sensor = createSensor();
+    when(microsoftWindowsEnvironment.getCurrentProject(Matchers.anyString())).thenReturn(vsProject);
+    verifyFunctionsAndStatements(analyseProject(CONDITIONAL_COMPILATION_FILE), 1.0, 0.0);
+
+    settings.setProperty(DotNetConstants.BUILD_CONFIGURATION_KEY, "Debug");
+    sensor = createSensor();
+    when(microsoftWindowsEnvironment.getCurrentProject(Matchers.anyString())).thenReturn(vsProject);
+    verifyFunctionsAndStatements(analyseProject(CONDITIONAL_COMPILATION_FILE), 2.0, 3.0);
+  }
+
+  @Test
+  public void analyseWithoutConditionalCompilation() {
+    settings.setProperty(CSharpSquidConstants.SQUID_PREPROCESSOR_SYMBOLS_PROPERTY, "DEBUG,TRACE");
+    verifyFunctionsAndStatements(analyseProject(CONDITIONAL_COMPILATION_FILE), 3.0, 3.0);
+  }
+
+  @Test
+  public void analyseWithGeneratedCodeSkipped() {
+    settings.setProperty(CSharpSquidConstants.SQUID_GENERATED_CODE_PROPERTY, CSharpSquidConstants.GENERATED_CODE_SKIP);
+    analyseAndVerifyMeasures();
+
+    settings.setProperty(CSharpSquidConstants.SQUID_GENERATED_CODE_FILE_PATTERNS_PROPERTY, "**/CSharpSquidSensor.cs");
+    sensor = createSensor();
+    SensorContext context = analyseProject();
+    verify(context, Mockito.never()).saveMeasure(Mockito.any(Resource.class), Mockito.eq(CoreMetrics.FILES), Mockito.anyDouble());
+  }
+
+  @Test
+  public void analyseWithGeneratedCodeLinesOnly() {
+    settings.setProperty(CSharpSquidConstants.SQUID_GENERATED_CODE_PROPERTY, CSharpSquidConstants.GENERATED_CODE_LINES_ONLY);
+    settings.setProperty(CSharpSquidConstants.SQUID_GENERATED_CODE_FILE_PATTERNS_PROPERTY, "**/CSharpSquidSensor.cs");
+    SensorContext context = analyseProject();
+
+    verify(context).saveMeasure(Mockito.any(Resource.class), Mockito.eq(CoreMetrics.FILES), Mockito.eq(1.0));
+    verify(context).saveMeasure(Mockito.any(Resource.class), Mockito.eq(CoreMetrics.CLASSES), Mockito.eq(0.0));
+    verify(context).saveMeasure(Mockito.any(Resource.class), Mockito.eq(CoreMetrics.FUNCTIONS), Mockito.eq(0.0));
+    verify(context).saveMeasure(Mockito.any(Resource.class), Mockito.eq(CoreMetrics.LINES), Mockito.eq(363.0));
+    verify(context).saveMeasure(Mockito.any(Resource.class), Mockito.eq(CoreMetrics.NCLOC), Mockito.eq(278.0));
+    verify(context).saveMeasure(Mockito.any(Resource.class), Mockito.eq(CoreMetrics.STATEMENTS), Mockito.eq(0.0));
+    verify(context).saveMeasure(Mockito.any(Resource.class), Mockito.eq(CoreMetrics.COMPLEXITY), Mockito.eq(0.0));
+    verify(context).saveMeasure(Mockito.any(Resource.class), Mockito.eq(CoreMetrics.COMMENT_LINES), Mockito.eq(33.0));
+  }
+
+  @Test
+  public void analyseWithMaxParsedFileLines() {
+    settings.setProperty(CSharpSquidConstants.SQUID_MAX_PARSED_FILE_LINES_PROPERTY, 363);
+    analyseAndVerifyMeasures();
+
+    settings.setProperty(CSharpSquidConstants.SQUID_MAX_PARSED_FILE_LINES_PROPERTY, 100);
+    sensor = createSensor();
+    SensorContext context = analyseProject();
+    verify(context).saveMeasure(Mockito.any(Resource.class), Mockito.eq(CoreMetrics.CLASSES), Mockito.eq(0.0));
+    verify(context).saveMeasure(Mockito.any(Resource.class), Mockito.eq(CoreMetrics.LINES), Mockito.eq(363.0));
+    verify(context).saveMeasure(Mockito.any(Resource.class), Mockito.eq(CoreMetrics.NCLOC), Mockito.eq(278.0));
+  }
+
+  @Test
+  public void analyseWithCpdTokens() {
+    analyseAndVerifyMeasures();
+    assertThat(cpdTokens.isEmpty(), is(true));
+
+    settings.setProperty(CSharpSquidConstants.CPD_REUSE_SQUID_TOKENS_PROPERTY, true);
+    sensor = createSensor();
+    analyseAndVerifyMeasures();
+    assertThat(cpdTokens.take(new File("src/test/resources/CSharpSquidSensor.cs").getAbsolutePath()).size() > 0, is(true));
+  }
+
+  private void analyseAndVerifyMeasures() {
+    SensorContext context = analyseProject();
 
     verify(context).saveMeasure(Mockito.any(Resource.class), Mockito.eq(CoreMetrics.FILES), Mockito.eq(1.0));
     verify(context).saveMeasure(Mockito.any(Resource.class), Mockito.eq(CoreMetrics.CLASSES), Mockito.eq(3.0));
@@ -101,4 +279,34 @@ public class CSharpSquidSensorTest {
     verify(context).saveMeasure(Mockito.any(Resource.class), Mockito.eq(CoreMetrics.COMMENT_LINES), Mockito.eq(33.0));
   }
 
+  private String readProfile() throws IOException {
+    return Files.toString(new File(temporaryFolder.getRoot(), CSharpSquidConstants.SQUID_PROFILE_FILE_NAME), Charsets.UTF_8);
+  }
+
+  private void verifyFunctionsAndStatements(SensorContext context, double functions, double statements) {
+    verify(context).saveMeasure(Mockito.any(Resource.class), Mockito.eq(CoreMetrics.FUNCTIONS), Mockito.eq(functions));
+    verify(context).saveMeasure(Mockito.any(Resource.class), Mockito.eq(CoreMetrics.STATEMENTS), Mockito.eq(statements));
+  }
+
+  private SensorContext analyseProject() {
+    return analyseProject(new File("src/test/resources/CSharpSquidSensor.cs"));
+  }
+
+  private SensorContext analyseProject(File file) {
+    ProjectFileSystem projectFileSystem = mock(ProjectFileSystem.class);
+    when(projectFileSystem.getSourceCharset()).thenReturn(Charset.forName("UTF-8"));
+    InputFile inputFile = InputFileUtils.create(file.getParentFile(), file);
+    when(projectFileSystem.mainFiles(CSharpConstants.LANGUAGE_KEY)).thenReturn(ImmutableList.of(inputFile));
+    when(projectFileSystem.getSourceDirs()).thenReturn(ImmutableList.of(file.getParentFile()));
+    when(projectFileSystem.getSonarWorkingDirectory()).thenReturn(temporaryFolder.getRoot());
+
+    Project project = mock(Project.class);
+    when(project.getFileSystem()).thenReturn(projectFileSystem);
+
+    SensorContext context = mock(SensorContext.class);
+
+    sensor.analyse(project, context);
+    return context;
+  }
+
 }
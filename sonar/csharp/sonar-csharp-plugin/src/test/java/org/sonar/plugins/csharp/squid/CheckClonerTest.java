@@ -0,0 +1,65 @@
+/*
+ * Sonar C# Plugin :: Core
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.csharp.squid;
+
+import com.google.common.collect.ImmutableList;
+import com.sonar.csharp.checks.LineLengthCheck;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.squid.SquidAstVisitor;
+import org.junit.Test;
+import org.sonar.api.checks.AnnotationCheckFactory;
+import org.sonar.api.profiles.RulesProfile;
+import org.sonar.api.rules.ActiveRule;
+import org.sonar.api.rules.Rule;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class CheckClonerTest {
+
+  @Test
+  public void should_clone_checks_with_their_properties() {
+    Rule rule = Rule.create(CSharpSquidConstants.REPOSITORY_KEY, "LineLength", "Line length");
+    rule.createParameter("maximumLineLength");
+    RulesProfile profile = RulesProfile.create();
+    ActiveRule activeRule = profile.activateRule(rule, null);
+    activeRule.setParameter("maximumLineLength", "42");
+
+    AnnotationCheckFactory annotationCheckFactory = AnnotationCheckFactory.create(profile, CSharpSquidConstants.REPOSITORY_KEY,
+        ImmutableList.<Class> of(LineLengthCheck.class));
+    Object check = annotationCheckFactory.getChecks().iterator().next();
+    CheckCloner cloner = new CheckCloner(annotationCheckFactory);
+
+    List<SquidAstVisitor<Grammar>> clones = cloner.cloneChecks();
+    assertThat(clones.size(), is(1));
+    LineLengthCheck clone = (LineLengthCheck) clones.get(0);
+    assertThat(clone, not(sameInstance(check)));
+    assertThat(clone.maximumLineLength, is(42));
+
+    assertThat(cloner.getActiveRule(clone), is(activeRule));
+    assertThat(cloner.getActiveRule(check), is(activeRule));
+    assertThat(cloner.cloneChecks().get(0), not(sameInstance((Object) clone)));
+  }
+
+}
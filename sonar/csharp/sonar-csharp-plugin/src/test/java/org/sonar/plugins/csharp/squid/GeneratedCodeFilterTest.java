@@ -0,0 +1,61 @@
+/*
+ * Sonar C# Plugin :: Core
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.csharp.squid;
+
+import com.google.common.base.Charsets;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class GeneratedCodeFilterTest {
+
+  private static final String[] FILE_PATTERNS = CSharpSquidConstants.SQUID_GENERATED_CODE_FILE_PATTERNS_DEFVALUE.split(",");
+  private static final String[] HEADER_MARKERS = CSharpSquidConstants.SQUID_GENERATED_CODE_HEADER_MARKERS_DEFVALUE.split(",");
+
+  @Test
+  public void should_detect_generated_files_from_their_path() {
+    GeneratedCodeFilter filter = new GeneratedCodeFilter(FILE_PATTERNS, new String[0], Charsets.UTF_8);
+
+    assertThat(filter.isGenerated(new File("src/test/resources/generated/Form.Designer.cs")), is(true));
+    assertThat(filter.isGenerated(new File("Properties/Resources.g.cs")), is(true));
+    assertThat(filter.isGenerated(new File("Service References/Reference.cs")), is(true));
+    assertThat(filter.isGenerated(new File("src/test/resources/generated/AutoGenerated.cs")), is(false));
+  }
+
+  @Test
+  public void should_detect_generated_files_from_their_header() {
+    GeneratedCodeFilter filter = new GeneratedCodeFilter(new String[0], HEADER_MARKERS, Charsets.UTF_8);
+
+    assertThat(filter.isGenerated(new File("src/test/resources/generated/AutoGenerated.cs")), is(true));
+    assertThat(filter.isGenerated(new File("src/test/resources/generated/Handwritten.cs")), is(false));
+    assertThat(filter.isGenerated(new File("src/test/resources/generated/Form.Designer.cs")), is(false));
+  }
+
+  @Test
+  public void unreadable_files_should_not_be_generated() {
+    GeneratedCodeFilter filter = new GeneratedCodeFilter(FILE_PATTERNS, HEADER_MARKERS, Charsets.UTF_8);
+
+    assertThat(filter.isGenerated(new File("src/test/resources/generated/Unknown.cs")), is(false));
+  }
+
+}
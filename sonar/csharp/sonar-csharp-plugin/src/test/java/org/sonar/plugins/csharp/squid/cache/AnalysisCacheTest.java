@@ -0,0 +1,123 @@
+/*
+ * Sonar C# Plugin :: Core
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.csharp.squid.cache;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import com.sonar.csharp.squid.CSharpConfiguration;
+import com.sonar.csharp.squid.api.CSharpMetric;
+import com.sonar.csharp.squid.api.source.SourceClass;
+import com.sonar.csharp.squid.api.source.SourceMember;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.checks.AnnotationCheckFactory;
+import org.sonar.api.profiles.RulesProfile;
+import org.sonar.plugins.csharp.squid.CSharpSquidConstants;
+import org.sonar.squid.api.SourceFile;
+import org.sonar.squid.api.SourceProject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+public class AnalysisCacheTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File cacheFile;
+  private File sourceFile;
+
+  @Before
+  public void init() throws IOException {
+    cacheFile = new File(temporaryFolder.getRoot(), "cache/csharp-squid.cache");
+    sourceFile = temporaryFolder.newFile("Foo.cs");
+    Files.write("class Foo { void Bar() {} }", sourceFile, Charsets.UTF_8);
+  }
+
+  @Test
+  public void should_reuse_unchanged_files() {
+    AnalysisCache cache = AnalysisCache.load(cacheFile, "fingerprint");
+    assertThat(cache.get(sourceFile), nullValue());
+    cache.put(sourceFile, CachedFile.of(createSquidFile()));
+    cache.save();
+
+    CachedFile cachedFile = AnalysisCache.load(cacheFile, "fingerprint").get(sourceFile);
+    assertThat(cachedFile, notNullValue());
+
+    SourceProject project = new SourceProject("C# Project");
+    SourceFile squidFile = cachedFile.restore(project, Maps.<String, Object> newHashMap());
+    assertThat(squidFile.getKey(), is(sourceFile.getAbsolutePath()));
+    assertThat(squidFile.getInt(CSharpMetric.COMPLEXITY), is(1));
+    assertThat(squidFile.getFirstChild().getFirstChild().getKey(), is("Foo#Bar:1"));
+    assertThat(project.getInt(CSharpMetric.FILES), is(1));
+  }
+
+  @Test
+  public void should_not_reuse_changed_files() throws IOException {
+    AnalysisCache cache = AnalysisCache.load(cacheFile, "fingerprint");
+    cache.put(sourceFile, CachedFile.of(createSquidFile()));
+    cache.save();
+
+    Files.append(" ", sourceFile, Charsets.UTF_8);
+    assertThat(AnalysisCache.load(cacheFile, "fingerprint").get(sourceFile), nullValue());
+  }
+
+  @Test
+  public void should_discard_cache_when_fingerprint_changes() {
+    AnalysisCache cache = AnalysisCache.load(cacheFile, "fingerprint");
+    cache.put(sourceFile, CachedFile.of(createSquidFile()));
+    cache.save();
+
+    assertThat(AnalysisCache.load(cacheFile, "other fingerprint").get(sourceFile), nullValue());
+  }
+
+  @Test
+  public void should_change_fingerprint_with_version() {
+    CSharpConfiguration conf = new CSharpConfiguration(Charsets.UTF_8);
+    AnnotationCheckFactory annotationCheckFactory = AnnotationCheckFactory.create(RulesProfile.create(), CSharpSquidConstants.REPOSITORY_KEY, Collections.emptyList());
+
+    String fingerprint = AnalysisCache.createFingerprint(conf, "", annotationCheckFactory);
+    assertThat(fingerprint, startsWith(AnalysisCache.VERSION + "|"));
+    assertThat(AnalysisCache.createFingerprint(AnalysisCache.VERSION, conf, "", annotationCheckFactory), is(fingerprint));
+    assertThat(AnalysisCache.createFingerprint(AnalysisCache.VERSION + 1, conf, "", annotationCheckFactory), not(fingerprint));
+  }
+
+  private SourceFile createSquidFile() {
+    SourceFile squidFile = new SourceFile(sourceFile.getAbsolutePath(), sourceFile.getName());
+    squidFile.setMeasure(CSharpMetric.FILES, 1);
+    squidFile.setMeasure(CSharpMetric.COMPLEXITY, 1);
+    SourceClass squidClass = new SourceClass("Foo", "Foo");
+    squidFile.addChild(squidClass);
+    squidClass.addChild(new SourceMember(squidClass, "Bar:1", 1));
+    return squidFile;
+  }
+
+}
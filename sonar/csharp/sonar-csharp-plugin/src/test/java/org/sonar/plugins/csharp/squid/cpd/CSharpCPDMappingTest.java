@@ -19,15 +19,21 @@
  */
 package org.sonar.plugins.csharp.squid.cpd;
 
+import com.google.common.collect.ImmutableList;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.sonar.api.config.Settings;
+import org.sonar.api.resources.InputFileUtils;
 import org.sonar.api.resources.Project;
 import org.sonar.api.resources.ProjectFileSystem;
 import org.sonar.plugins.csharp.api.CSharp;
 import org.sonar.plugins.csharp.core.CSharpCorePlugin;
+import org.sonar.plugins.csharp.squid.CSharpSquidConstants;
+
+import java.io.File;
+import java.nio.charset.Charset;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Mockito.when;
@@ -53,10 +59,30 @@ public class CSharpCPDMappingTest {
 
   @Test
   public void test() {
-    CSharpCPDMapping mapping = new CSharpCPDMapping(language, project, settings);
+    CSharpCPDMapping mapping = new CSharpCPDMapping(language, project, settings, new CSharpCPDTokens());
 
     assertThat(mapping.getLanguage()).isSameAs(language);
     assertThat(mapping.getTokenizer()).isInstanceOf(CSharpCPDTokenizer.class);
   }
 
+  @Test
+  public void files_should_be_lexed_ahead_with_several_threads() {
+    File file = new File("src/test/resources/cpd/simpleFile.cs");
+    when(projectFileSystem.getSourceCharset()).thenReturn(Charset.forName("UTF-8"));
+    when(language.getKey()).thenReturn("cs");
+    when(projectFileSystem.mainFiles("cs")).thenReturn(ImmutableList.of(InputFileUtils.create(file.getParentFile(), file)));
+    settings.setProperty(CSharpSquidConstants.CPD_THREADS_PROPERTY, 2);
+    CSharpCPDTokens cpdTokens = new CSharpCPDTokens();
+
+    new CSharpCPDMapping(language, project, settings, cpdTokens).getTokenizer();
+    assertThat(cpdTokens.contains(file.getAbsolutePath())).isTrue();
+  }
+
+  @Test
+  public void tokenizer_should_be_reused() {
+    CSharpCPDMapping mapping = new CSharpCPDMapping(language, project, settings, new CSharpCPDTokens());
+
+    assertThat(mapping.getTokenizer()).isSameAs(mapping.getTokenizer());
+  }
+
 }
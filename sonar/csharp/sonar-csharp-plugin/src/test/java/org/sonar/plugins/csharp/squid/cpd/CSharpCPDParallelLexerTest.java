@@ -0,0 +1,97 @@
+/*
+ * Sonar C# Plugin :: Core
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.csharp.squid.cpd;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import net.sourceforge.pmd.cpd.SourceCode;
+import net.sourceforge.pmd.cpd.TokenEntry;
+import net.sourceforge.pmd.cpd.Tokens;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CSharpCPDParallelLexerTest {
+
+  private static final Charset CHARSET = Charset.forName("UTF-8");
+
+  private final List<File> files = Lists.newArrayList();
+
+  public CSharpCPDParallelLexerTest() {
+    for (String path : new String[] {"/cpd/simpleFile.cs", "/cpd/usingDirective.cs", "/cpd/usingDirectiveInNamespace.cs",
+      "/cpd/NUnitFramework.cs", "/cpd/duplication-cSharpExample.cs", "/cpd/only-comments.cs", "/CSharpSquidSensor.cs"}) {
+      files.add(FileUtils.toFile(getClass().getResource(path)));
+    }
+  }
+
+  @Test
+  public void should_give_the_same_tokens_as_a_sequential_tokenization() {
+    for (boolean ignoreLiterals : new boolean[] {true, false}) {
+      CSharpCPDTokens cpdTokens = new CSharpCPDTokens();
+      new CSharpCPDParallelLexer(ignoreLiterals, CHARSET, cpdTokens, 3).lex(files);
+      for (File file : files) {
+        assertThat(cpdTokens.contains(file.getAbsolutePath()), is(true));
+      }
+
+      assertThat(image(tokenize(new CSharpCPDTokenizer(ignoreLiterals, CHARSET, cpdTokens))),
+          is(image(tokenize(new CSharpCPDTokenizer(ignoreLiterals, CHARSET)))));
+      assertThat(cpdTokens.isEmpty(), is(true));
+    }
+  }
+
+  @Test
+  public void should_not_lex_again_the_files_already_retained() {
+    CSharpCPDTokens cpdTokens = new CSharpCPDTokens();
+    CSharpCPDTokens.FileTokens retained = new CSharpCPDTokens.FileTokens(new int[0], new int[0]);
+    cpdTokens.put(files.get(0).getAbsolutePath(), retained);
+
+    new CSharpCPDParallelLexer(true, CHARSET, cpdTokens, 2).lex(ImmutableList.of(files.get(0), files.get(1)));
+    assertThat(cpdTokens.take(files.get(0).getAbsolutePath()) == retained, is(true));
+    assertThat(cpdTokens.contains(files.get(1).getAbsolutePath()), is(true));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void should_require_at_least_one_thread() {
+    new CSharpCPDParallelLexer(true, CHARSET, new CSharpCPDTokens(), 0);
+  }
+
+  private Tokens tokenize(CSharpCPDTokenizer tokenizer) {
+    Tokens tokens = new Tokens();
+    for (File file : files) {
+      tokenizer.tokenize(new SourceCode(new SourceCode.FileCodeLoader(file, CHARSET.name())), tokens);
+    }
+    return tokens;
+  }
+
+  private static String image(Tokens tokens) {
+    StringBuilder sb = new StringBuilder();
+    for (TokenEntry token : (List<TokenEntry>) tokens.getTokens()) {
+      sb.append(token.getTokenSrcID()).append(':').append(token.getBeginLine()).append(':').append(token.getValue()).append(' ');
+    }
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Sonar C# Plugin :: Core
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.csharp.squid.cpd;
+
+import com.google.common.io.Files;
+import com.sonar.csharp.squid.CSharpConfiguration;
+import com.sonar.csharp.squid.scanner.CSharpAstScanner;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.squid.AstScanner;
+import net.sourceforge.pmd.cpd.SourceCode;
+import net.sourceforge.pmd.cpd.TokenEntry;
+import net.sourceforge.pmd.cpd.Tokens;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class CSharpCPDTokensVisitorTest {
+
+  private static final Charset CHARSET = Charset.forName("UTF-8");
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void should_retain_the_same_tokens_as_the_lexer() {
+    for (String path : new String[] {"/cpd/simpleFile.cs", "/cpd/usingDirective.cs", "/cpd/usingDirectiveInNamespace.cs",
+      "/cpd/NUnitFramework.cs", "/cpd/duplication-cSharpExample.cs", "/CSharpSquidSensor.cs"}) {
+      for (boolean ignoreLiterals : new boolean[] {true, false}) {
+        File file = FileUtils.toFile(getClass().getResource(path));
+        assertThat(path, image(tokenizeFromSquid(file, ignoreLiterals)), is(image(tokenize(file, ignoreLiterals, null))));
+      }
+    }
+  }
+
+  @Test
+  public void should_retain_the_regions_left_out_by_the_conditional_compilation() {
+    File file = FileUtils.toFile(getClass().getResource("/cpd/conditionalCompilation.cs"));
+    CSharpConfiguration conf = new CSharpConfiguration(CHARSET);
+    conf.setPreprocessorSymbols(Collections.singleton("DEBUG"));
+    CSharpCPDTokens cpdTokens = scan(file, true, conf);
+
+    assertThat(cpdTokens.contains(file.getAbsolutePath()), is(true));
+    assertThat(image(tokenize(file, true, cpdTokens)), is(image(tokenize(file, true, null))));
+  }
+
+  @Test
+  public void should_hand_out_the_tokens_of_a_file_once() {
+    File file = FileUtils.toFile(getClass().getResource("/cpd/simpleFile.cs"));
+    CSharpCPDTokens cpdTokens = scan(file, true);
+
+    tokenize(file, true, cpdTokens);
+    assertThat(cpdTokens.take(file.getAbsolutePath()), nullValue());
+    assertThat(cpdTokens.isEmpty(), is(true));
+  }
+
+  @Test
+  public void should_not_retain_the_tokens_of_a_file_which_cannot_be_parsed() throws IOException {
+    File file = temporaryFolder.newFile("unparsable.cs");
+    Files.write("class A { int }", file, CHARSET);
+    CSharpCPDTokens cpdTokens = scan(file, true);
+
+    assertThat(cpdTokens.isEmpty(), is(true));
+    assertThat(tokenize(file, true, cpdTokens).size(), is(6));
+  }
+
+  private static Tokens tokenizeFromSquid(File file, boolean ignoreLiterals) {
+    return tokenize(file, ignoreLiterals, scan(file, ignoreLiterals));
+  }
+
+  private static CSharpCPDTokens scan(File file, boolean ignoreLiterals) {
+    return scan(file, ignoreLiterals, new CSharpConfiguration(CHARSET));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static CSharpCPDTokens scan(File file, boolean ignoreLiterals, CSharpConfiguration conf) {
+    CSharpCPDTokens cpdTokens = new CSharpCPDTokens();
+    AstScanner<Grammar> scanner = CSharpAstScanner.create(conf, new CSharpCPDTokensVisitor(cpdTokens, ignoreLiterals));
+    scanner.scanFiles(Collections.singleton(file));
+    return cpdTokens;
+  }
+
+  private static Tokens tokenize(File file, boolean ignoreLiterals, CSharpCPDTokens cpdTokens) {
+    Tokens tokens = new Tokens();
+    new CSharpCPDTokenizer(ignoreLiterals, CHARSET, cpdTokens).tokenize(new SourceCode(new SourceCode.FileCodeLoader(file, CHARSET.name())),
+        tokens);
+    return tokens;
+  }
+
+  private static String image(Tokens tokens) {
+    StringBuilder sb = new StringBuilder();
+    for (TokenEntry token : (List<TokenEntry>) tokens.getTokens()) {
+      sb.append(token.getBeginLine()).append(':').append(token.getIdentifier()).append(' ');
+    }
+    return sb.toString();
+  }
+
+}
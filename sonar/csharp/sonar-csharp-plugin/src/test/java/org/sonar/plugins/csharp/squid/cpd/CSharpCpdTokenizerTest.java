@@ -20,6 +20,7 @@
 package org.sonar.plugins.csharp.squid.cpd;
 
 import net.sourceforge.pmd.cpd.SourceCode;
+import net.sourceforge.pmd.cpd.TokenEntry;
 import net.sourceforge.pmd.cpd.Tokens;
 import org.apache.commons.io.FileUtils;
 import org.junit.Test;
@@ -27,8 +28,10 @@ import org.junit.Test;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.nio.charset.Charset;
+import java.util.List;
 
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 public class CSharpCpdTokenizerTest {
@@ -65,6 +68,32 @@ public class CSharpCpdTokenizerTest {
     assertThat(tokens.size(), is(1));
   }
 
+  @Test
+  public void tokenizerShouldBeReusable() throws FileNotFoundException {
+    SourceCode usingDirective = new SourceCode(new SourceCode.FileCodeLoader(readFile("/cpd/usingDirective.cs"), Charset.defaultCharset()
+        .displayName()));
+    SourceCode simpleFile = new SourceCode(
+        new SourceCode.FileCodeLoader(readFile("/cpd/simpleFile.cs"), Charset.defaultCharset().displayName()));
+    Tokens tokens = new Tokens();
+    tokenizer.tokenize(usingDirective, tokens);
+    tokenizer.tokenize(simpleFile, tokens);
+    tokenizer.tokenize(usingDirective, tokens);
+
+    assertThat(tokens.size(), is(1 + 18 + 1));
+  }
+
+  @Test
+  public void tokensWithTheSameImageShouldShareTheirString() throws FileNotFoundException {
+    SourceCode source = new SourceCode(
+        new SourceCode.FileCodeLoader(readFile("/cpd/simpleFile.cs"), Charset.defaultCharset().displayName()));
+    Tokens tokens = new Tokens();
+    tokenizer.tokenize(source, tokens);
+    tokenizer.tokenize(source, tokens);
+
+    List<TokenEntry> entries = tokens.getTokens();
+    assertThat(entries.get(0).getValue(), sameInstance(entries.get(tokens.size() / 2).getValue()));
+  }
+
   private File readFile(String path) throws FileNotFoundException {
     return FileUtils.toFile(getClass().getResource(path));
   }
@@ -0,0 +1,50 @@
+/*
+ * Sonar C# Plugin :: Core
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.csharp.squid.cpd;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class ImageDictionaryTest {
+
+  private final ImageDictionary images = new ImageDictionary();
+
+  @Test
+  public void should_give_the_same_id_to_the_same_image() {
+    int id = images.getId("foo");
+
+    assertThat(images.getId(new String("foo")), is(id));
+    assertThat(images.getId("bar"), not(id));
+    assertThat(images.size(), is(2));
+  }
+
+  @Test
+  public void should_share_the_first_string_of_an_image() {
+    String image = new String("foo");
+    images.getId(image);
+
+    assertThat(images.getImage(images.getId(new String("foo"))), sameInstance(image));
+  }
+
+}
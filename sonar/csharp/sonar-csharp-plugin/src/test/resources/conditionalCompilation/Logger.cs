@@ -0,0 +1,22 @@
+namespace Example
+{
+  public class Logger
+  {
+#if DEBUG
+    public void Log(string message)
+    {
+      System.Console.WriteLine(message);
+      System.Diagnostics.Debug.WriteLine(message);
+    }
+
+    public void Trace(string message)
+    {
+      Log(message);
+    }
+#else
+    public void Log(string message)
+    {
+    }
+#endif
+  }
+}
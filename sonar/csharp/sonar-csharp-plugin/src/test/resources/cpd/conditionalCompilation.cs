@@ -0,0 +1,15 @@
+using System;
+
+namespace Example
+{
+  class Logger
+  {
+#if DEBUG
+    public void Log(string message) {
+#else
+    public void Log(object message) {
+#endif
+      Console.WriteLine(message);
+    }
+  }
+}
@@ -0,0 +1,20 @@
+#region Usings
+using System;
+#endregion
+
+namespace MyCompany.Proj
+{
+    using System.IO;
+    using Nested = MyCompany.Proj.Nested;
+
+    class Reader
+    {
+        string Read(string path)
+        {
+            using (StreamReader reader = new StreamReader(path))
+            {
+                return reader.ReadToEnd() + "!";
+            }
+        }
+    }
+}
@@ -0,0 +1,6 @@
+namespace Generated
+{
+    partial class Form
+    {
+    }
+}
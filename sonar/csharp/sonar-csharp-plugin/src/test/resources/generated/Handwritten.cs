@@ -0,0 +1,7 @@
+// This class is not generated, even though it mentions auto-generated code
+namespace Generated
+{
+    public class Handwritten
+    {
+    }
+}
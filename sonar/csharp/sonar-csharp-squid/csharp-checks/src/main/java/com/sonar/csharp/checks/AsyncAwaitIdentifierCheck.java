@@ -41,6 +41,10 @@ public class AsyncAwaitIdentifierCheck extends SquidCheck<Grammar> {
 
   @Override
   public void visitNode(AstNode node) {
+    if (node.getParent().is(CSharpGrammar.UNPARSED_CODE)) {
+      // the tokens of a file which is not parsed do not tell whether "async" and "await" are used as keywords
+      return;
+    }
     if (isAsyncOrAwaitIdentifier(node)) {
       getContext().createLineViolation(this, "Rename this identifier.", node);
     }
@@ -19,25 +19,22 @@
  */
 package com.sonar.csharp.checks;
 
-import com.google.common.collect.Sets;
 import com.sonar.csharp.squid.parser.CSharpGrammar;
+import com.sonar.csharp.squid.semantic.SemanticModel;
+import com.sonar.csharp.squid.semantic.SemanticModelAwareVisitor;
 import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.Grammar;
-import com.sonar.sslr.api.Token;
 import com.sonar.sslr.squid.checks.SquidCheck;
 import org.sonar.check.BelongsToProfile;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
 
-import java.util.List;
-import java.util.Set;
-
 @Rule(
   key = "ClassCoupling",
   priority = Priority.MAJOR)
 @BelongsToProfile(title = CheckList.SONAR_WAY_PROFILE, priority = Priority.MAJOR)
-public class ClassCouplingCheck extends SquidCheck<Grammar> {
+public class ClassCouplingCheck extends SquidCheck<Grammar> implements SemanticModelAwareVisitor {
 
   private static final int DEFAULT_COUPLING_THRESHOLD = 20;
 
@@ -46,40 +43,27 @@ public class ClassCouplingCheck extends SquidCheck<Grammar> {
     defaultValue = "" + DEFAULT_COUPLING_THRESHOLD)
   public int couplingThreshold = DEFAULT_COUPLING_THRESHOLD;
 
-  private final Set<String> types = Sets.newHashSet();
+  private SemanticModel semanticModel;
+
+  public void setSemanticModel(SemanticModel semanticModel) {
+    this.semanticModel = semanticModel;
+  }
 
   @Override
   public void init() {
-    subscribeTo(
-        CSharpGrammar.CLASS_DECLARATION,
-        CSharpGrammar.TYPE);
+    subscribeTo(CSharpGrammar.CLASS_DECLARATION);
   }
 
   @Override
   public void visitNode(AstNode node) {
-    if (node.is(CSharpGrammar.CLASS_DECLARATION)) {
-      types.clear();
-    } else {
-      types.add(joinTokens(node.getTokens()));
-    }
-  }
+    int coupling = semanticModel.getScope(node).getReferencedTypes().size();
 
-  @Override
-  public void leaveNode(AstNode node) {
-    if (node.is(CSharpGrammar.CLASS_DECLARATION) && types.size() > couplingThreshold) {
+    if (coupling > couplingThreshold) {
       getContext().createLineViolation(
           this,
-          "Refactor this class that is coupled to " + types.size() + " other classes (which is higher than " + couplingThreshold + " authorized).",
+          "Refactor this class that is coupled to " + coupling + " other classes (which is higher than " + couplingThreshold + " authorized).",
           node);
     }
   }
 
-  private String joinTokens(List<Token> tokens) {
-    StringBuilder sb = new StringBuilder();
-    for (Token token : tokens) {
-      sb.append(token.getOriginalValue());
-    }
-    return sb.toString();
-  }
-
 }
@@ -22,6 +22,7 @@ package com.sonar.csharp.checks;
 import com.google.common.collect.Sets;
 import com.sonar.csharp.squid.api.CSharpKeyword;
 import com.sonar.sslr.api.AstAndTokenVisitor;
+import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.Grammar;
 import com.sonar.sslr.api.Token;
 import com.sonar.sslr.api.Trivia;
@@ -36,8 +37,9 @@ import org.sonar.squid.recognizer.EndWithDetector;
 import org.sonar.squid.recognizer.KeywordsDetector;
 import org.sonar.squid.recognizer.LanguageFootprint;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
-import java.util.regex.Pattern;
 
 @Rule(
   key = "CommentedCode",
@@ -47,8 +49,21 @@ public class CommentedCodeCheck extends SquidCheck<Grammar> implements AstAndTok
 
   private static final double THRESHOLD = 0.94;
 
+  private static final int MIN_KEYWORDS_OF_CODE = 8;
+  private static final String DETECTED_CHARACTERS = "{};+(|&";
+  private static final String KEYWORD_DELIMITERS = " \t(),{}";
+  private static final int MAX_HEADER_COMMENTS = 100;
+
   private final CodeRecognizer codeRecognizer = new CodeRecognizer(THRESHOLD, new CSharpRecognizer());
-  private final Pattern regexpToDivideStringByLine = Pattern.compile("(\r?\n)|(\r)");
+  private final Map<String, Integer> headerCodeLineOffsets = new LinkedHashMap<String, Integer>(16, 0.75f, true) {
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+      return size() > MAX_HEADER_COMMENTS;
+    }
+
+  };
+  private boolean seenFirstToken;
 
   private static class CSharpRecognizer implements LanguageFootprint {
 
@@ -65,21 +80,84 @@ public class CommentedCodeCheck extends SquidCheck<Grammar> implements AstAndTok
 
   }
 
+  @Override
+  public void visitFile(AstNode astNode) {
+    seenFirstToken = false;
+  }
+
   public void visitToken(Token token) {
+    boolean header = !seenFirstToken;
+    seenFirstToken = true;
     for (Trivia trivia : token.getTrivia()) {
       if (trivia.isComment() && !trivia.getToken().getOriginalValue().startsWith("///")) {
-        String lines[] = regexpToDivideStringByLine.split(getContext().getCommentAnalyser().getContents(
-            trivia.getToken().getOriginalValue()));
-
-        for (int lineOffset = 0; lineOffset < lines.length; lineOffset++) {
-          if (codeRecognizer.isLineOfCode(lines[lineOffset])) {
-            getContext().createLineViolation(this, "Remove this commented out code or move it into XML documentation.",
-                trivia.getToken().getLine() + lineOffset);
-            break;
-          }
+        String comment = trivia.getToken().getOriginalValue();
+        int lineOffset = header ? getHeaderCodeLineOffset(comment) : getCodeLineOffset(comment);
+        if (lineOffset != -1) {
+          getContext().createLineViolation(this, "Remove this commented out code or move it into XML documentation.",
+              trivia.getToken().getLine() + lineOffset);
         }
       }
     }
   }
 
+  /**
+   * The header comments, typically the license, are often the same in all the files: they are only recognized once.
+   */
+  private int getHeaderCodeLineOffset(String comment) {
+    Integer lineOffset = headerCodeLineOffsets.get(comment);
+    if (lineOffset == null) {
+      lineOffset = getCodeLineOffset(comment);
+      headerCodeLineOffsets.put(comment, lineOffset);
+    }
+    return lineOffset;
+  }
+
+  /**
+   * @return the offset of the first line of code in the comment, or -1 if there is none
+   */
+  private int getCodeLineOffset(String comment) {
+    String contents = getContext().getCommentAnalyser().getContents(comment);
+    int lineOffset = 0;
+    int lineStart = 0;
+    while (lineStart <= contents.length()) {
+      int lineEnd = lineStart;
+      while (lineEnd < contents.length() && contents.charAt(lineEnd) != '\n' && contents.charAt(lineEnd) != '\r') {
+        lineEnd++;
+      }
+      String line = contents.substring(lineStart, lineEnd);
+      if (mayBeCode(line) && codeRecognizer.isLineOfCode(line)) {
+        return lineOffset;
+      }
+
+      if (lineEnd + 1 < contents.length() && contents.charAt(lineEnd) == '\r' && contents.charAt(lineEnd + 1) == '\n') {
+        lineEnd++;
+      }
+      lineStart = lineEnd + 1;
+      lineOffset++;
+    }
+    return -1;
+  }
+
+  /**
+   * Cheap test rejecting most of the lines which can not be code. Without any of the characters looked for by the detectors, only the
+   * keywords one can recognize a line, and it needs at least 8 keywords to reach the threshold (1 - 0.7^8 &gt;= 0.94): a line with fewer
+   * words can not be code.
+   */
+  static boolean mayBeCode(String line) {
+    int words = 0;
+    boolean inWord = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (DETECTED_CHARACTERS.indexOf(c) != -1) {
+        return true;
+      }
+      boolean delimiter = KEYWORD_DELIMITERS.indexOf(c) != -1;
+      if (!delimiter && !inWord) {
+        words++;
+      }
+      inWord = !delimiter;
+    }
+    return words >= MIN_KEYWORDS_OF_CODE;
+  }
+
 }
@@ -0,0 +1,153 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Checks
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.checks;
+
+import com.google.common.collect.Lists;
+import com.sonar.sslr.api.AstAndTokenVisitor;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
+import com.sonar.sslr.squid.SquidAstVisitor;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Matches the comments against the regular expressions of several {@link CommentRegularExpressionCheck} instances in a single pass over
+ * the tokens, instead of each check visiting all the tokens on its own.
+ * <br/>
+ * The most common regular expressions, <code>.*literal.*</code> and <code>(?i).*literal.*</code>, only test whether the comment contains
+ * some text: they are evaluated with a plain search, in a lower case copy of the comment shared by all the case insensitive ones. The
+ * other regular expressions are matched as they are by the checks.
+ */
+public final class CompiledCommentRegularExpressionChecks extends SquidAstVisitor<Grammar> implements AstAndTokenVisitor {
+
+  private static final Pattern CONTAINS_LITERAL = Pattern.compile("(\\(\\?i\\))?\\.\\*([A-Za-z0-9 _:@\\-]++)\\.\\*");
+
+  private final List<CompiledRegularExpression> regularExpressions = Lists.newArrayList();
+  private boolean hasCaseInsensitiveLiterals;
+
+  private CompiledCommentRegularExpressionChecks() {
+  }
+
+  /**
+   * Replaces the {@link CommentRegularExpressionCheck} instances with a valid regular expression by a single
+   * {@link CompiledCommentRegularExpressionChecks}, and keeps the other visitors as they are.
+   */
+  public static List<SquidAstVisitor<Grammar>> compile(List<SquidAstVisitor<Grammar>> visitors) {
+    List<SquidAstVisitor<Grammar>> result = Lists.newArrayList();
+    CompiledCommentRegularExpressionChecks compiledChecks = new CompiledCommentRegularExpressionChecks();
+    for (SquidAstVisitor<Grammar> visitor : visitors) {
+      if (!(visitor instanceof CommentRegularExpressionCheck) || !compiledChecks.add((CommentRegularExpressionCheck) visitor)) {
+        result.add(visitor);
+      }
+    }
+    if (!compiledChecks.regularExpressions.isEmpty()) {
+      result.add(compiledChecks);
+    }
+    return result;
+  }
+
+  private boolean add(CommentRegularExpressionCheck check) {
+    String regularExpression = check.getRegularExpression();
+    if (regularExpression == null || regularExpression.length() == 0) {
+      return false;
+    }
+
+    Matcher matcher = CONTAINS_LITERAL.matcher(regularExpression);
+    if (matcher.matches()) {
+      boolean caseInsensitive = matcher.group(1) != null;
+      String literal = matcher.group(2);
+      regularExpressions.add(new CompiledRegularExpression(check, null, caseInsensitive ? toLowerCase(literal) : literal, caseInsensitive));
+      hasCaseInsensitiveLiterals |= caseInsensitive;
+      return true;
+    }
+
+    try {
+      // Same flags as the check
+      regularExpressions.add(new CompiledRegularExpression(check, Pattern.compile(regularExpression, Pattern.DOTALL), null, false));
+      return true;
+    } catch (PatternSyntaxException e) {
+      // Left to the check, which reports invalid regular expressions
+      return false;
+    }
+  }
+
+  public void visitToken(Token token) {
+    for (Trivia trivia : token.getTrivia()) {
+      if (trivia.isComment()) {
+        visitComment(trivia.getToken());
+      }
+    }
+  }
+
+  private void visitComment(Token comment) {
+    String value = comment.getOriginalValue();
+    String lowerCaseValue = hasCaseInsensitiveLiterals ? toLowerCase(value) : null;
+    for (CompiledRegularExpression regularExpression : regularExpressions) {
+      if (regularExpression.matches(value, lowerCaseValue)) {
+        getContext().createLineViolation(regularExpression.check, regularExpression.check.getMessage(), comment);
+      }
+    }
+  }
+
+  /**
+   * Only the US-ASCII letters are lowered, as <code>(?i)</code> without <code>(?u)</code> only ignores their case.
+   */
+  private static String toLowerCase(String value) {
+    char[] chars = null;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c >= 'A' && c <= 'Z') {
+        if (chars == null) {
+          chars = value.toCharArray();
+        }
+        chars[i] = (char) (c + ('a' - 'A'));
+      }
+    }
+    return chars == null ? value : new String(chars);
+  }
+
+  private static final class CompiledRegularExpression {
+
+    private final CommentRegularExpressionCheck check;
+    private final Pattern pattern;
+    private final String literal;
+    private final boolean caseInsensitive;
+
+    public CompiledRegularExpression(CommentRegularExpressionCheck check, Pattern pattern, String literal, boolean caseInsensitive) {
+      this.check = check;
+      this.pattern = pattern;
+      this.literal = literal;
+      this.caseInsensitive = caseInsensitive;
+    }
+
+    public boolean matches(String value, String lowerCaseValue) {
+      if (pattern != null) {
+        return pattern.matcher(value).matches();
+      }
+      return (caseInsensitive ? lowerCaseValue : value).contains(literal);
+    }
+
+  }
+
+}
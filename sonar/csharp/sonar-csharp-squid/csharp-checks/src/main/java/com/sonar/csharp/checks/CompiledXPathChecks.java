@@ -0,0 +1,300 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Checks
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.checks;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.sonar.csharp.squid.api.CSharpKeyword;
+import com.sonar.csharp.squid.api.CSharpPreprocessingKeyword;
+import com.sonar.csharp.squid.api.CSharpPunctuator;
+import com.sonar.csharp.squid.api.CSharpTokenType;
+import com.sonar.csharp.squid.parser.CSharpGrammar;
+import com.sonar.csharp.squid.scanner.ScanProfile;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.AstNodeType;
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.api.TokenType;
+import com.sonar.sslr.squid.SquidAstVisitor;
+import com.sonar.sslr.xpath.api.AstNodeXPathQuery;
+
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Evaluates the queries of several {@link XPathCheck} instances during the walk of the tree done by the scanner, instead of each check
+ * walking the whole tree on its own.
+ * <br/>
+ * A query of the form <code>//NODE_TYPE[predicate]...</code> is compiled once into <code>self::NODE_TYPE[predicate]...</code>, which is
+ * only evaluated on the nodes of that type: the checks targeting the same node type are grouped together. The other queries (absolute
+ * paths, unions, positional predicates, functions of the whole file...) can not be evaluated node by node, and their checks are kept
+ * as they are.
+ */
+public final class CompiledXPathChecks extends SquidAstVisitor<Grammar> {
+
+  private static final Pattern DESCENDANT_QUERY = Pattern.compile("\\s*+//\\s*+([A-Za-z_][A-Za-z0-9_]*+)(.*)", Pattern.DOTALL);
+  private static final Pattern POSITIONAL_FUNCTION = Pattern.compile("\\b(position|last)\\s*\\(");
+  private static final Pattern BOOLEAN_FUNCTION = Pattern.compile("(not|boolean|true|false|contains|starts-with|lang)\\s*\\(.*", Pattern.DOTALL);
+  private static final Pattern PATH = Pattern.compile("[A-Za-z_@.*/:|\\-0-9\\s]*+(\\[.*)?", Pattern.DOTALL);
+  private static final ImmutableListMultimap<String, AstNodeType> NODE_TYPES_BY_NAME = createNodeTypesByName();
+
+  private final ListMultimap<AstNodeType, CompiledQuery> queriesByNodeType = ArrayListMultimap.create();
+  private final List<CompiledQuery> queries = Lists.newArrayList();
+  private final ScanProfile profile;
+
+  private CompiledXPathChecks(ScanProfile profile) {
+    this.profile = profile;
+  }
+
+  /**
+   * Replaces the {@link XPathCheck} instances whose query can be compiled by a single {@link CompiledXPathChecks}, and keeps the other
+   * visitors as they are.
+   *
+   * @param profile
+   *          the profile in which to record the time spent evaluating each compiled query, or null not to profile them
+   */
+  public static List<SquidAstVisitor<Grammar>> compile(List<SquidAstVisitor<Grammar>> visitors, ScanProfile profile) {
+    List<SquidAstVisitor<Grammar>> result = Lists.newArrayList();
+    CompiledXPathChecks compiledChecks = new CompiledXPathChecks(profile);
+    for (SquidAstVisitor<Grammar> visitor : visitors) {
+      if (!(visitor instanceof XPathCheck) || !compiledChecks.add((XPathCheck) visitor)) {
+        result.add(visitor);
+      }
+    }
+    if (!compiledChecks.queries.isEmpty()) {
+      result.add(compiledChecks);
+    }
+    return result;
+  }
+
+  private boolean add(XPathCheck check) {
+    Matcher matcher = DESCENDANT_QUERY.matcher(check.getXPathQuery());
+    if (!matcher.matches()) {
+      return false;
+    }
+    String nodeName = matcher.group(1);
+    String predicates = matcher.group(2).trim();
+    List<AstNodeType> nodeTypes = NODE_TYPES_BY_NAME.get(nodeName);
+    if (nodeTypes.isEmpty() || !isNodeIndependent(predicates)) {
+      return false;
+    }
+
+    AstNodeXPathQuery<Object> query;
+    try {
+      query = AstNodeXPathQuery.create("self::" + nodeName + predicates);
+    } catch (RuntimeException e) {
+      // Left to the check, which reports invalid queries
+      return false;
+    }
+    CompiledQuery compiledQuery = new CompiledQuery(check, query);
+    queries.add(compiledQuery);
+    for (AstNodeType nodeType : nodeTypes) {
+      queriesByNodeType.put(nodeType, compiledQuery);
+    }
+    return true;
+  }
+
+  @Override
+  public void init() {
+    Set<AstNodeType> nodeTypes = queriesByNodeType.keySet();
+    subscribeTo(nodeTypes.toArray(new AstNodeType[nodeTypes.size()]));
+  }
+
+  @Override
+  public void visitNode(AstNode astNode) {
+    for (CompiledQuery query : queriesByNodeType.get(astNode.getType())) {
+      if (profile == null) {
+        query.evaluate(astNode);
+      } else {
+        long start = System.nanoTime();
+        query.evaluate(astNode);
+        query.time += System.nanoTime() - start;
+      }
+    }
+  }
+
+  /**
+   * The time is handed over to the profile once per file, like the one of the visitors.
+   */
+  @Override
+  public void leaveFile(AstNode astNode) {
+    if (profile != null) {
+      for (CompiledQuery query : queries) {
+        profile.addVisitorTime("XPathCheck " + query.check.getXPathQuery(), query.time);
+        query.time = 0;
+      }
+    }
+  }
+
+  /**
+   * The predicates must give the same result whether they are evaluated on a node among its siblings of the same type, as in
+   * <code>//NODE_TYPE</code>, or on the node alone, as in <code>self::NODE_TYPE</code>: that is the case of the boolean and node set
+   * ones, but not of the numeric ones, which test the position of the node.
+   */
+  private static boolean isNodeIndependent(String predicates) {
+    if (POSITIONAL_FUNCTION.matcher(predicates).find()) {
+      return false;
+    }
+    int start = 0;
+    while (start < predicates.length()) {
+      int end = findClosingBracket(predicates, start);
+      if (end == -1 || !isBooleanOrNodeSet(predicates.substring(start + 1, end).trim())) {
+        return false;
+      }
+      start = end + 1;
+      while (start < predicates.length() && Character.isWhitespace(predicates.charAt(start))) {
+        start++;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the index of the bracket closing the one at the given index, or -1 if there is none or if there is no bracket at that index
+   */
+  private static int findClosingBracket(String predicates, int start) {
+    if (predicates.charAt(start) != '[') {
+      return -1;
+    }
+    int depth = 0;
+    char quote = 0;
+    for (int i = start; i < predicates.length(); i++) {
+      char c = predicates.charAt(i);
+      if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '\'' || c == '"') {
+        quote = c;
+      } else if (c == '[') {
+        depth++;
+      } else if (c == ']' && --depth == 0) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean isBooleanOrNodeSet(String predicate) {
+    if (hasTopLevelComparison(predicate)) {
+      return true;
+    }
+    if (hasTopLevelArithmetic(predicate)) {
+      return false;
+    }
+    return BOOLEAN_FUNCTION.matcher(predicate).matches() || (PATH.matcher(predicate).matches() && !predicate.matches("\\.?[0-9\\-].*"));
+  }
+
+  private static boolean hasTopLevelComparison(String predicate) {
+    String topLevel = topLevel(predicate);
+    return topLevel.indexOf('=') != -1 || topLevel.indexOf('<') != -1 || topLevel.indexOf('>') != -1
+      || topLevel.contains(" and ") || topLevel.contains(" or ");
+  }
+
+  /**
+   * A star is a multiplication unless it starts a name test, and a minus sign is a subtraction when it can not be part of a name.
+   */
+  private static boolean hasTopLevelArithmetic(String predicate) {
+    String topLevel = topLevel(predicate);
+    if (topLevel.indexOf('+') != -1 || topLevel.contains(" div ") || topLevel.contains(" mod ")) {
+      return true;
+    }
+    for (int i = 0; i < topLevel.length(); i++) {
+      char c = topLevel.charAt(i);
+      char previous = i == 0 ? '/' : topLevel.charAt(i - 1);
+      if ((c == '*' && previous != '/' && previous != '@' && previous != ':') || (c == '-' && Character.isWhitespace(previous))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the predicate, with blanks in place of what is between quotes, brackets or parentheses
+   */
+  private static String topLevel(String predicate) {
+    StringBuilder sb = new StringBuilder(predicate.length());
+    int depth = 0;
+    char quote = 0;
+    for (int i = 0; i < predicate.length(); i++) {
+      char c = predicate.charAt(i);
+      boolean nested = quote != 0 || depth > 0;
+      if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '\'' || c == '"') {
+        quote = c;
+        nested = true;
+      } else if (c == '[' || c == '(') {
+        depth++;
+        nested = true;
+      } else if (c == ']' || c == ')') {
+        depth--;
+        nested = true;
+      }
+      sb.append(nested ? ' ' : c);
+    }
+    return sb.toString();
+  }
+
+  private static ImmutableListMultimap<String, AstNodeType> createNodeTypesByName() {
+    ImmutableListMultimap.Builder<String, AstNodeType> builder = ImmutableListMultimap.builder();
+    for (CSharpGrammar rule : CSharpGrammar.values()) {
+      builder.put(rule.toString(), rule);
+    }
+    addTokenTypes(builder, CSharpKeyword.values());
+    addTokenTypes(builder, CSharpPunctuator.values());
+    addTokenTypes(builder, CSharpTokenType.values());
+    addTokenTypes(builder, CSharpPreprocessingKeyword.values());
+    addTokenTypes(builder, GenericTokenType.values());
+    return builder.build();
+  }
+
+  private static void addTokenTypes(ImmutableListMultimap.Builder<String, AstNodeType> builder, TokenType[] tokenTypes) {
+    for (TokenType tokenType : tokenTypes) {
+      builder.put(tokenType.getName(), tokenType);
+    }
+  }
+
+  private final class CompiledQuery {
+
+    private final XPathCheck check;
+    private final AstNodeXPathQuery<Object> query;
+    private long time;
+
+    public CompiledQuery(XPathCheck check, AstNodeXPathQuery<Object> query) {
+      this.check = check;
+      this.query = query;
+    }
+
+    public void evaluate(AstNode astNode) {
+      if (!query.selectNodes(astNode).isEmpty()) {
+        getContext().createLineViolation(check, check.getMessage(), astNode.getTokenLine());
+      }
+    }
+
+  }
+
+}
@@ -19,27 +19,23 @@
  */
 package com.sonar.csharp.checks;
 
-import com.google.common.io.Files;
-import com.sonar.csharp.squid.CharsetAwareVisitor;
+import com.sonar.csharp.squid.FileContent;
+import com.sonar.csharp.squid.FileContentAwareVisitor;
 import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.Grammar;
 import com.sonar.sslr.squid.checks.SquidCheck;
-import org.sonar.api.utils.SonarException;
 import org.sonar.check.BelongsToProfile;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.charset.Charset;
 import java.util.List;
 
 @Rule(
   key = "LineLength",
   priority = Priority.MINOR)
 @BelongsToProfile(title = CheckList.SONAR_WAY_PROFILE, priority = Priority.MINOR)
-public class LineLengthCheck extends SquidCheck<Grammar> implements CharsetAwareVisitor {
+public class LineLengthCheck extends SquidCheck<Grammar> implements FileContentAwareVisitor {
 
   private static final int DEFAULT_MAXIMUM_LINE_LENHGTH = 200;
 
@@ -48,12 +44,11 @@ public class LineLengthCheck extends SquidCheck<Grammar> implements CharsetAware
     defaultValue = "" + DEFAULT_MAXIMUM_LINE_LENHGTH)
   public int maximumLineLength = DEFAULT_MAXIMUM_LINE_LENHGTH;
 
-  private Charset charset;
+  private FileContent fileContent;
 
   @Override
   public void visitFile(AstNode astNode) {
-    File file = getContext().getFile();
-    List<String> lines = readLines(file);
+    List<String> lines = fileContent.getLines();
     for (int i = 0; i < lines.size(); i++) {
       int length = lines.get(i).length();
       if (length > maximumLineLength) {
@@ -65,16 +60,8 @@ public class LineLengthCheck extends SquidCheck<Grammar> implements CharsetAware
     }
   }
 
-  private List<String> readLines(File file) {
-    try {
-      return Files.readLines(file, charset);
-    } catch (IOException e) {
-      throw new SonarException("Unable to read " + file, e);
-    }
-  }
-
-  public void setCharset(Charset charset) {
-    this.charset = charset;
+  public void setFileContent(FileContent fileContent) {
+    this.fileContent = fileContent;
   }
 
 }
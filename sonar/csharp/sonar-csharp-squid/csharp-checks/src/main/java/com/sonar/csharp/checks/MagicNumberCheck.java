@@ -59,6 +59,10 @@ public class MagicNumberCheck extends SquidCheck<Grammar> {
 
   @Override
   public void visitNode(AstNode node) {
+    if (node.getParent().is(CSharpGrammar.UNPARSED_CODE)) {
+      // the tokens of a file which is not parsed do not tell whether they are in a declaration or an enum
+      return;
+    }
     if (!isInDeclaration(node) && !isExcluded(node) && !isInEnum(node)) {
       getContext().createLineViolation(this, "Extract this magic number into a constant, variable declaration or an enum.", node);
     }
@@ -19,181 +19,57 @@
  */
 package com.sonar.csharp.checks;
 
-import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Sets;
-import com.sonar.csharp.squid.api.CSharpKeyword;
 import com.sonar.csharp.squid.parser.CSharpGrammar;
+import com.sonar.csharp.squid.semantic.SemanticModel;
+import com.sonar.csharp.squid.semantic.SemanticModelAwareVisitor;
+import com.sonar.csharp.squid.semantic.Symbol;
 import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.GenericTokenType;
 import com.sonar.sslr.api.Grammar;
-import com.sonar.sslr.api.Token;
 import com.sonar.sslr.squid.checks.SquidCheck;
 import org.sonar.check.BelongsToProfile;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.Set;
-
 @Rule(
   key = "ParameterAssignedTo",
   priority = Priority.MAJOR)
 @BelongsToProfile(title = CheckList.SONAR_WAY_PROFILE, priority = Priority.MAJOR)
-public class ParameterAssignedToCheck extends SquidCheck<Grammar> {
-
-  private final Set<String> parameters = Sets.newHashSet();
+public class ParameterAssignedToCheck extends SquidCheck<Grammar> implements SemanticModelAwareVisitor {
 
-  @Override
-  public void init() {
-    subscribeTo(
-        CSharpGrammar.ASSIGNMENT,
+  private SemanticModel semanticModel;
 
-        CSharpGrammar.METHOD_DECLARATION,
-        CSharpGrammar.INDEXER_DECLARATION,
-        CSharpGrammar.SET_ACCESSOR_DECLARATION,
-        CSharpGrammar.OPERATOR_DECLARATION,
-        CSharpGrammar.LAMBDA_EXPRESSION,
-        CSharpGrammar.ANONYMOUS_METHOD_EXPRESSION);
+  public void setSemanticModel(SemanticModel semanticModel) {
+    this.semanticModel = semanticModel;
   }
 
   @Override
-  public void visitNode(AstNode node) {
-    if (node.is(CSharpGrammar.ASSIGNMENT)) {
-      String target = getAssignmentTarget(node);
-
-      if (parameters.contains(target)) {
-        getContext().createLineViolation(this, "Remove this assignment to the method parameter '" + target + "'.", node);
-      }
-    } else {
-      parameters.addAll(getNonOutNorRefParameters(node));
-    }
+  public void init() {
+    subscribeTo(CSharpGrammar.ASSIGNMENT);
   }
 
   @Override
-  public void leaveNode(AstNode node) {
-    if (!node.is(CSharpGrammar.ASSIGNMENT)) {
-      parameters.removeAll(getNonOutNorRefParameters(node));
-    }
-  }
-
-  private static Set<String> getNonOutNorRefParameters(AstNode node) {
-    Set<String> parameters;
-
-    if (node.is(CSharpGrammar.METHOD_DECLARATION)) {
-      parameters = getNonOutNorRefMethodParameters(node);
-    } else if (node.is(CSharpGrammar.INDEXER_DECLARATION)) {
-      parameters = getNonOutNorRefIndexerParameters(node);
-    } else if (node.is(CSharpGrammar.SET_ACCESSOR_DECLARATION)) {
-      parameters = ImmutableSet.of("value");
-    } else if (node.is(CSharpGrammar.OPERATOR_DECLARATION)) {
-      parameters = getOperatorParameters(node);
-    } else if (node.is(CSharpGrammar.LAMBDA_EXPRESSION)) {
-      AstNode anonymousFunctionSignature = node.getFirstChild(CSharpGrammar.ANONYMOUS_FUNCTION_SIGNATURE);
-
-      if (anonymousFunctionSignature.hasDirectChildren(CSharpGrammar.EXPLICIT_ANONYMOUS_FUNCTION_SIGNATURE)) {
-        AstNode explicitAnonymousFunctionSignature = anonymousFunctionSignature.getFirstChild(CSharpGrammar.EXPLICIT_ANONYMOUS_FUNCTION_SIGNATURE);
-        parameters = getNonOutNorRefExplicitAnonymousFunctionParameters(explicitAnonymousFunctionSignature);
-      } else {
-        AstNode implicitAnonymousFunctionSignature = anonymousFunctionSignature.getFirstChild(CSharpGrammar.IMPLICIT_ANONYMOUS_FUNCTION_SIGNATURE);
-        parameters = getImplicitAnonymousFunctionParameters(implicitAnonymousFunctionSignature);
-      }
-    } else if (node.is(CSharpGrammar.ANONYMOUS_METHOD_EXPRESSION)) {
-      AstNode explicitAnonymousFunctionSignature = node.getFirstChild(CSharpGrammar.EXPLICIT_ANONYMOUS_FUNCTION_SIGNATURE);
-      parameters = explicitAnonymousFunctionSignature == null ?
-          (Set<String>) Collections.EMPTY_SET :
-          getNonOutNorRefExplicitAnonymousFunctionParameters(explicitAnonymousFunctionSignature);
-    } else {
-      throw new IllegalArgumentException("Unexpected node type: " + node.getType() + ", " + node);
-    }
-
-    return parameters;
-  }
-
-  private static Set<String> getImplicitAnonymousFunctionParameters(AstNode node) {
-    ImmutableSet.Builder<String> builder = ImmutableSet.builder();
-
-    for (AstNode identifier : node.getDescendants(GenericTokenType.IDENTIFIER)) {
-      builder.add(identifier.getTokenOriginalValue());
-    }
-
-    return builder.build();
-  }
-
-  private static Set<String> getNonOutNorRefExplicitAnonymousFunctionParameters(AstNode node) {
-    ImmutableSet.Builder<String> builder = ImmutableSet.builder();
-
-    for (AstNode explicitAnonymousFunctionParameter : node.getChildren(CSharpGrammar.EXPLICIT_ANONYMOUS_FUNCTION_PARAMETER)) {
-      if (!isOutOrRefExplicitAnonymousFunctionParameter(explicitAnonymousFunctionParameter)) {
-        builder.add(explicitAnonymousFunctionParameter.getFirstChild(GenericTokenType.IDENTIFIER).getTokenOriginalValue());
-      }
-    }
-
-    return builder.build();
-  }
-
-  private static boolean isOutOrRefExplicitAnonymousFunctionParameter(AstNode node) {
-    return node.hasDirectChildren(CSharpGrammar.ANONYMOUS_FUNCTION_PARAMETER_MODIFIER) &&
-      node.getFirstChild(CSharpGrammar.ANONYMOUS_FUNCTION_PARAMETER_MODIFIER).hasDirectChildren(CSharpKeyword.OUT, CSharpKeyword.REF);
-  }
-
-  private static Set<String> getNonOutNorRefMethodParameters(AstNode node) {
-    return node.hasDirectChildren(CSharpGrammar.FORMAL_PARAMETER_LIST) ?
-        getNonOutNorRefFormalParameters(node.getFirstChild(CSharpGrammar.FORMAL_PARAMETER_LIST)) :
-        Collections.EMPTY_SET;
-  }
-
-  private static Set<String> getNonOutNorRefIndexerParameters(AstNode node) {
-    return getNonOutNorRefFormalParameters(node.getFirstChild(CSharpGrammar.INDEXER_DECLARATOR).getFirstChild(CSharpGrammar.FORMAL_PARAMETER_LIST));
-  }
-
-  private static Set<String> getNonOutNorRefFormalParameters(AstNode node) {
-    ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+  public void visitNode(AstNode node) {
+    AstNode target = getAssignedIdentifier(node);
 
-    Iterable<AstNode> fixedParameters = node
-        .select()
-        .children(CSharpGrammar.FIXED_PARAMETERS)
-        .children(CSharpGrammar.FIXED_PARAMETER);
+    if (target != null) {
+      Symbol symbol = semanticModel.resolve(target);
 
-    for (AstNode fixedParameter : fixedParameters) {
-      if (!isOutOrRefFixedParameter(fixedParameter)) {
-        builder.add(fixedParameter.getFirstChild(GenericTokenType.IDENTIFIER).getTokenOriginalValue());
+      if (symbol != null && symbol.is(Symbol.Kind.PARAMETER) && !symbol.isPassedByReference()) {
+        getContext().createLineViolation(this, "Remove this assignment to the method parameter '" + symbol.getName() + "'.", node);
       }
     }
-
-    return builder.build();
-  }
-
-  private static boolean isOutOrRefFixedParameter(AstNode node) {
-    return node.hasDirectChildren(CSharpGrammar.PARAMETER_MODIFIER) &&
-      node.getFirstChild(CSharpGrammar.PARAMETER_MODIFIER).hasDirectChildren(CSharpKeyword.OUT, CSharpKeyword.REF);
-  }
-
-  private static Set<String> getOperatorParameters(AstNode node) {
-    ImmutableSet.Builder<String> builder = ImmutableSet.builder();
-
-    List<AstNode> identifiers = node
-        .getFirstChild(CSharpGrammar.OPERATOR_DECLARATOR)
-        .getFirstChild(CSharpGrammar.UNARY_OPERATOR_DECLARATOR, CSharpGrammar.BINARY_OPERATOR_DECLARATOR, CSharpGrammar.CONVERSION_OPERATOR_DECLARATOR)
-        .getChildren(GenericTokenType.IDENTIFIER);
-
-    for (AstNode identifier : identifiers) {
-      builder.add(identifier.getTokenOriginalValue());
-    }
-
-    return builder.build();
-  }
-
-  private String getAssignmentTarget(AstNode node) {
-    return joinTokens(node.getFirstChild(CSharpGrammar.ASSIGNMENT_TARGET).getTokens());
   }
 
-  private String joinTokens(List<Token> tokens) {
-    StringBuilder sb = new StringBuilder();
-    for (Token token : tokens) {
-      sb.append(token.getOriginalValue());
+  /**
+   * @return the identifier which is assigned, or null if the target is not a simple name (a member access, an element access...)
+   */
+  private static AstNode getAssignedIdentifier(AstNode node) {
+    AstNode target = node.getFirstChild(CSharpGrammar.ASSIGNMENT_TARGET);
+    while (target.getNumberOfChildren() == 1) {
+      target = target.getFirstChild();
     }
-    return sb.toString();
+    return target.is(GenericTokenType.IDENTIFIER) ? target : null;
   }
 
 }
@@ -19,6 +19,8 @@
  */
 package com.sonar.csharp.checks;
 
+import com.sonar.csharp.squid.parser.CSharpGrammar;
+import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.AuditListener;
 import com.sonar.sslr.api.Grammar;
 import com.sonar.sslr.api.RecognitionException;
@@ -34,6 +36,20 @@ import java.io.StringWriter;
   priority = Priority.MAJOR)
 public class ParsingErrorCheck extends SquidCheck<Grammar> implements AuditListener {
 
+  @Override
+  public void init() {
+    subscribeTo(CSharpGrammar.RECOVERED_MEMBER, CSharpGrammar.RECOVERED_STATEMENT);
+  }
+
+  /**
+   * The parts of the file skipped by the error recovery of the parser are reported as parse errors, the rest of the file being analysed.
+   */
+  @Override
+  public void visitNode(AstNode node) {
+    String kind = node.is(CSharpGrammar.RECOVERED_MEMBER) ? "member" : "statement";
+    getContext().createLineViolation(this, "Unable to parse this " + kind + ", skipped up to line " + node.getLastToken().getLine() + ".", node);
+  }
+
   public void processException(Exception e) {
     StringWriter exception = new StringWriter();
     e.printStackTrace(new PrintWriter(exception));
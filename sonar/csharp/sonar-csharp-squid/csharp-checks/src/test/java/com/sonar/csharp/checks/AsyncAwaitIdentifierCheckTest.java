@@ -19,6 +19,8 @@
  */
 package com.sonar.csharp.checks;
 
+import com.google.common.base.Charsets;
+import com.sonar.csharp.squid.CSharpConfiguration;
 import com.sonar.csharp.squid.scanner.CSharpAstScanner;
 import com.sonar.sslr.squid.checks.CheckMessagesVerifierRule;
 import org.junit.Rule;
@@ -41,4 +43,14 @@ public class AsyncAwaitIdentifierCheckTest {
         .next().atLine(16);
   }
 
+  @Test
+  public void should_not_report_on_files_too_big_to_be_parsed() {
+    CSharpConfiguration conf = new CSharpConfiguration(Charsets.UTF_8);
+    conf.setMaxParsedFileLines(2);
+
+    SourceFile file = CSharpAstScanner.scanSingleFile(new File("src/test/resources/checks/asyncAwaitIdentifier.cs"), conf, new AsyncAwaitIdentifierCheck());
+
+    checkMessagesVerifier.verify(file.getCheckMessages());
+  }
+
 }
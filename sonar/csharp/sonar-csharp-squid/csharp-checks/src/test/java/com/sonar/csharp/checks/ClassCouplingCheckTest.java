@@ -52,4 +52,12 @@ public class ClassCouplingCheckTest {
         .next().atLine(37).withMessage("Refactor this class that is coupled to 23 other classes (which is higher than 22 authorized).");
   }
 
+  @Test
+  public void nested_classes() {
+    SourceFile file = CSharpAstScanner.scanSingleFile(new File("src/test/resources/checks/classCouplingNested.cs"), new ClassCouplingCheck());
+
+    checkMessagesVerifier.verify(file.getCheckMessages())
+        .next().atLine(5).withMessage("Refactor this class that is coupled to 21 other classes (which is higher than 20 authorized).");
+  }
+
 }
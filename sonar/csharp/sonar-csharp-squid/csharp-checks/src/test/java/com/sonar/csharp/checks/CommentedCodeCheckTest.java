@@ -19,19 +19,36 @@
  */
 package com.sonar.csharp.checks;
 
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import com.sonar.csharp.squid.CSharpConfiguration;
 import com.sonar.csharp.squid.scanner.CSharpAstScanner;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.squid.AstScanner;
+import com.sonar.sslr.squid.checks.CheckMessagesVerifier;
 import com.sonar.sslr.squid.checks.CheckMessagesVerifierRule;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.squid.api.SourceCode;
 import org.sonar.squid.api.SourceFile;
+import org.sonar.squid.indexer.QueryByType;
 
 import java.io.File;
+import java.util.Collection;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
 
 public class CommentedCodeCheckTest {
 
   @Rule
   public CheckMessagesVerifierRule checkMessagesVerifier = new CheckMessagesVerifierRule();
 
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   @Test
   public void test() {
     SourceFile file = CSharpAstScanner.scanSingleFile(new File("src/test/resources/checks/commentedCode.cs"), new CommentedCodeCheck());
@@ -41,4 +58,30 @@ public class CommentedCodeCheckTest {
         .next().atLine(11);
   }
 
+  @Test
+  public void should_recognize_the_header_comments_of_every_file() throws Exception {
+    File file = new File("src/test/resources/checks/commentedCodeHeader.cs");
+    File copy = temporaryFolder.newFile("commentedCodeHeaderCopy.cs");
+    Files.copy(file, copy);
+
+    AstScanner<Grammar> scanner = CSharpAstScanner.create(new CSharpConfiguration(Charsets.UTF_8), new CommentedCodeCheck());
+    scanner.scanFiles(ImmutableList.of(file, copy));
+    Collection<SourceCode> sourceFiles = scanner.getIndex().search(new QueryByType(SourceFile.class));
+    assertThat(sourceFiles.size(), is(2));
+    for (SourceCode sourceFile : sourceFiles) {
+      CheckMessagesVerifier.verify(sourceFile.getCheckMessages())
+          .next().atLine(3)
+          .next().atLine(6)
+          .noMore();
+    }
+  }
+
+  @Test
+  public void should_only_reject_lines_which_can_not_be_code() {
+    assertThat(CommentedCodeCheck.mayBeCode(" The following line is bad"), is(false));
+    assertThat(CommentedCodeCheck.mayBeCode("int Id = 0;"), is(true));
+    assertThat(CommentedCodeCheck.mayBeCode("a || b"), is(true));
+    assertThat(CommentedCodeCheck.mayBeCode("public static class this is new base override virtual"), is(true));
+  }
+
 }
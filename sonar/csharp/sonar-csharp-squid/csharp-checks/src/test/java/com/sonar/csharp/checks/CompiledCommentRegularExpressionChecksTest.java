@@ -0,0 +1,87 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Checks
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.checks;
+
+import com.google.common.collect.Lists;
+import com.sonar.csharp.squid.scanner.CSharpAstScanner;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.squid.SquidAstVisitor;
+import com.sonar.sslr.squid.checks.CheckMessagesVerifier;
+import org.junit.Test;
+import org.sonar.squid.api.SourceFile;
+
+import java.io.File;
+import java.util.List;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class CompiledCommentRegularExpressionChecksTest {
+
+  @Test
+  public void should_report_the_same_violations_as_the_checks() {
+    List<SquidAstVisitor<Grammar>> visitors = CompiledCommentRegularExpressionChecks.compile(checks(
+        "(?i).*TODO.*",
+        ".*ToDo.*",
+        ".*he.*",
+        "/\\*.*perfect.*"));
+    assertThat(visitors.size(), is(1));
+    assertThat(visitors.get(0), instanceOf(CompiledCommentRegularExpressionChecks.class));
+
+    SourceFile file = CSharpAstScanner.scanSingleFile(new File("src/test/resources/checks/commentRegularExpression.cs"), toArray(visitors));
+    CheckMessagesVerifier.verify(file.getCheckMessages())
+        .next().atLine(5).withMessage("(?i).*TODO.*")
+        .next().atLine(6).withMessage(".*he.*")
+        .next().atLine(7).withMessage("(?i).*TODO.*")
+        .next().atLine(7).withMessage(".*ToDo.*")
+        .next().atLine(9).withMessage("(?i).*TODO.*")
+        .next().atLine(9).withMessage(".*ToDo.*")
+        .next().atLine(14).withMessage("/\\*.*perfect.*")
+        .noMore();
+  }
+
+  @Test
+  public void should_keep_the_checks_without_a_valid_regular_expression() {
+    List<SquidAstVisitor<Grammar>> checks = checks("", "(");
+    List<SquidAstVisitor<Grammar>> visitors = CompiledCommentRegularExpressionChecks.compile(checks);
+    assertThat(visitors.size(), is(2));
+    assertThat(visitors.get(0), sameInstance(checks.get(0)));
+    assertThat(visitors.get(1), sameInstance(checks.get(1)));
+  }
+
+  private static List<SquidAstVisitor<Grammar>> checks(String... regularExpressions) {
+    List<SquidAstVisitor<Grammar>> checks = Lists.newArrayList();
+    for (String regularExpression : regularExpressions) {
+      CommentRegularExpressionCheck check = new CommentRegularExpressionCheck();
+      check.regularExpression = regularExpression;
+      check.message = regularExpression;
+      checks.add(check);
+    }
+    return checks;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static SquidAstVisitor<Grammar>[] toArray(List<SquidAstVisitor<Grammar>> visitors) {
+    return visitors.toArray(new SquidAstVisitor[visitors.size()]);
+  }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Checks
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.checks;
+
+import com.google.common.collect.Lists;
+import com.sonar.csharp.squid.scanner.CSharpAstScanner;
+import com.sonar.csharp.squid.scanner.ScanProfile;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.squid.SquidAstVisitor;
+import com.sonar.sslr.squid.checks.CheckMessagesVerifierRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.squid.api.SourceFile;
+
+import java.io.File;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class CompiledXPathChecksTest {
+
+  @Rule
+  public CheckMessagesVerifierRule checkMessagesVerifier = new CheckMessagesVerifierRule();
+
+  @Test
+  public void should_report_the_same_violations_as_the_checks() {
+    List<SquidAstVisitor<Grammar>> visitors = CompiledXPathChecks.compile(checks(
+        "//IDENTIFIER[string-length(@tokenValue) >= 10]",
+        "//METHOD_DECLARATION",
+        "//METHOD_DECLARATION[MEMBER_NAME/IDENTIFIER[@tokenValue = 'Main']]"), null);
+    assertThat(visitors.size(), is(1));
+    assertThat(visitors.get(0), instanceOf(CompiledXPathChecks.class));
+
+    SourceFile file = CSharpAstScanner.scanSingleFile(new File("src/test/resources/checks/xpath.cs"), toArray(visitors));
+    checkMessagesVerifier.verify(file.getCheckMessages())
+        .next().atLine(6).withMessage("//METHOD_DECLARATION")
+        .next().atLine(7).withMessage("//IDENTIFIER[string-length(@tokenValue) >= 10]")
+        .next().atLine(10).withMessage("//METHOD_DECLARATION")
+        .next().atLine(10).withMessage("//METHOD_DECLARATION[MEMBER_NAME/IDENTIFIER[@tokenValue = 'Main']]");
+  }
+
+  @Test
+  public void should_keep_the_checks_which_can_not_be_evaluated_node_by_node() {
+    List<SquidAstVisitor<Grammar>> checks = checks(
+        "",
+        "//CLASS_DECLARATION/CLASS_BODY",
+        "//IDENTIFIER[1]",
+        "//IDENTIFIER[last()]",
+        "//IDENTIFIER[count(../*)]",
+        "//IDENTIFIER | //LITERAL",
+        "count(//IDENTIFIER) > 2",
+        "//UNKNOWN_NODE_TYPE",
+        "//IDENTIFIER[");
+    List<SquidAstVisitor<Grammar>> visitors = CompiledXPathChecks.compile(checks, null);
+    assertThat(visitors.size(), is(checks.size()));
+    for (int i = 0; i < checks.size(); i++) {
+      assertThat(visitors.get(i), sameInstance(checks.get(i)));
+    }
+  }
+
+  @Test
+  public void should_record_the_time_of_each_query() {
+    ScanProfile profile = new ScanProfile();
+    List<SquidAstVisitor<Grammar>> visitors = CompiledXPathChecks.compile(checks("//METHOD_DECLARATION"), profile);
+    CSharpAstScanner.scanSingleFile(new File("src/test/resources/checks/xpath.cs"), toArray(visitors));
+
+    List<String> names = Lists.newArrayList();
+    for (ScanProfile.VisitorProfile visitor : profile.getVisitors()) {
+      names.add(visitor.getName());
+    }
+    assertThat(names, hasItem("XPathCheck //METHOD_DECLARATION"));
+  }
+
+  private static List<SquidAstVisitor<Grammar>> checks(String... queries) {
+    List<SquidAstVisitor<Grammar>> checks = Lists.newArrayList();
+    for (String query : queries) {
+      XPathCheck check = new XPathCheck();
+      check.xpathQuery = query;
+      check.message = query;
+      checks.add(check);
+    }
+    return checks;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static SquidAstVisitor<Grammar>[] toArray(List<SquidAstVisitor<Grammar>> visitors) {
+    return visitors.toArray(new SquidAstVisitor[visitors.size()]);
+  }
+
+}
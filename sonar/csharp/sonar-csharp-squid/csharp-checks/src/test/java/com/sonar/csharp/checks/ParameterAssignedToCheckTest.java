@@ -52,7 +52,11 @@ public class ParameterAssignedToCheckTest {
         .next().atLine(122)
         .next().atLine(123)
         .next().atLine(129)
-        .next().atLine(138);
+        .next().atLine(138)
+        .next().atLine(149).withMessage("Remove this assignment to the method parameter 'a'.")
+        .next().atLine(150).withMessage("Remove this assignment to the method parameter 'others'.")
+        .next().atLine(159).withMessage("Remove this assignment to the method parameter 'value'.")
+        .next().atLine(170).withMessage("Remove this assignment to the method parameter 'c'.");
   }
 
 }
@@ -19,6 +19,8 @@
  */
 package com.sonar.csharp.checks;
 
+import com.sonar.csharp.squid.CSharpConfiguration;
+import com.sonar.csharp.squid.api.CSharpMetric;
 import com.sonar.csharp.squid.scanner.CSharpAstScanner;
 import com.sonar.sslr.squid.checks.CheckMessagesVerifierRule;
 import org.junit.Rule;
@@ -26,7 +28,9 @@ import org.junit.Test;
 import org.sonar.squid.api.SourceFile;
 
 import java.io.File;
+import java.nio.charset.Charset;
 
+import static org.fest.assertions.Assertions.assertThat;
 import static org.hamcrest.Matchers.containsString;
 
 public class ParsingErrorCheckTest {
@@ -42,4 +46,15 @@ public class ParsingErrorCheckTest {
         .next().atLine(8).withMessageThat(containsString("DOT expected but \"}\" [RCURLYBRACE] found"));
   }
 
+  @Test
+  public void error_recovery() {
+    CSharpConfiguration conf = new CSharpConfiguration(Charset.forName("UTF-8"));
+    conf.setErrorRecovery(true);
+    SourceFile file = CSharpAstScanner.scanSingleFile(new File("src/test/resources/checks/parsingError.cs"), conf, new ParsingErrorCheck());
+
+    checkMessagesVerifier.verify(file.getCheckMessages())
+        .next().atLine(7).withMessage("Unable to parse this statement, skipped up to line 7.");
+    assertThat(file.getInt(CSharpMetric.METHODS)).isEqualTo(1);
+  }
+
 }
@@ -0,0 +1,11 @@
+/*
+ * Copyright (C) 2012 SonarSource
+ * int header = 0;
+ */
+// This line is fine
+// int i = 0;
+using System;
+
+class Program
+{
+}
@@ -139,3 +139,36 @@ class Qux
         }
     }
 }
+
+class Quux
+{
+    int b;
+
+    public Quux(int a, params int[] others)
+    {
+        a = 0;          // Non-Compliant
+        others = null;  // Non-Compliant
+        this.b = a;     // Compliant
+        b = a;          // Compliant
+    }
+
+    public event EventHandler Changed
+    {
+        add
+        {
+            value = null; // Non-Compliant
+        }
+        remove
+        {
+        }
+    }
+
+    void foo(int c)
+    {
+        foreach (int d in new int[0])
+        {
+            c = d;      // Non-Compliant
+            d = 0;      // Compliant
+        }
+    }
+}
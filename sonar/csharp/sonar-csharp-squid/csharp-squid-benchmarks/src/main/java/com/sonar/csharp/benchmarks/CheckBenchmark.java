@@ -0,0 +1,90 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Benchmarks
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.benchmarks;
+
+import com.google.common.base.Charsets;
+import com.sonar.csharp.squid.CSharpConfiguration;
+import com.sonar.csharp.squid.scanner.CSharpAstScanner;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.squid.SquidAstVisitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.squid.api.SourceFile;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a full scan with a single check, with its default parameters: the cost of the check itself is the difference with
+ * {@link ScannerBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CheckBenchmark {
+
+  @Param({
+    "AssignmentInsideSubExpressionCheck",
+    "AsyncAwaitIdentifierCheck",
+    "BreakOutsideSwitchCheck",
+    "ClassCouplingCheck",
+    "ClassNameCheck",
+    "CommentedCodeCheck",
+    "CommentRegularExpressionCheck",
+    "FileLocCheck",
+    "FunctionComplexityCheck",
+    "LineLengthCheck",
+    "MagicNumberCheck",
+    "MethodNameCheck",
+    "ParameterAssignedToCheck",
+    "ParsingErrorCheck",
+    "SwitchWithoutDefaultCheck",
+    "TabCharacterCheck",
+    "XPathCheck"
+  })
+  public String check;
+
+  private final CSharpConfiguration conf = new CSharpConfiguration(Charsets.UTF_8);
+  private SquidAstVisitor<Grammar> visitor;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setUp() throws Exception {
+    visitor = (SquidAstVisitor<Grammar>) Class.forName("com.sonar.csharp.checks." + check).newInstance();
+  }
+
+  @Benchmark
+  @SuppressWarnings("unchecked")
+  public SourceFile scan(CorpusFile corpusFile) {
+    return CSharpAstScanner.scanSingleFile(corpusFile.getFile(), conf, visitor);
+  }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Benchmarks
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.benchmarks;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * One C# file of the corpus, available both as a string and as a file: small is a trivial class, medium a real-life file with
+ * attributes and generics, huge a whole library with LINQ queries.
+ */
+@State(Scope.Benchmark)
+public class CorpusFile {
+
+  @Param({"small", "medium", "huge"})
+  public String size;
+
+  private File file;
+  private String source;
+
+  @Setup
+  public void setUp() throws IOException {
+    source = Resources.toString(Resources.getResource("corpus/" + size + ".cs"), Charsets.UTF_8);
+    file = File.createTempFile("csharp-squid-benchmarks-" + size, ".cs");
+    Files.write(source, file, Charsets.UTF_8);
+  }
+
+  @TearDown
+  public void tearDown() {
+    file.delete();
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  public String getSource() {
+    return source;
+  }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Benchmarks
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.benchmarks;
+
+import com.google.common.base.Charsets;
+import net.sourceforge.pmd.cpd.SourceCode;
+import net.sourceforge.pmd.cpd.Tokens;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.plugins.csharp.squid.cpd.CSharpCPDTokenizer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the CPD tokenization of a file, with a tokenizer reused across the files as {@link
+ * org.sonar.plugins.csharp.squid.cpd.CSharpCPDMapping} does, and with a new tokenizer for every file. The difference is the per-file
+ * overhead of building the lexer and the parser of the using directives.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CpdTokenizerBenchmark {
+
+  private CSharpCPDTokenizer tokenizer;
+
+  @Setup
+  public void setUp() {
+    tokenizer = new CSharpCPDTokenizer(false, Charsets.UTF_8);
+  }
+
+  @Benchmark
+  public Tokens reusedTokenizer(CorpusFile corpusFile) {
+    return tokenize(tokenizer, corpusFile);
+  }
+
+  @Benchmark
+  public Tokens tokenizerPerFile(CorpusFile corpusFile) {
+    return tokenize(new CSharpCPDTokenizer(false, Charsets.UTF_8), corpusFile);
+  }
+
+  private static Tokens tokenize(CSharpCPDTokenizer tokenizer, CorpusFile corpusFile) {
+    Tokens tokens = new Tokens();
+    tokenizer.tokenize(new SourceCode(new SourceCode.FileCodeLoader(corpusFile.getFile(), Charsets.UTF_8.name())), tokens);
+    return tokens;
+  }
+
+}
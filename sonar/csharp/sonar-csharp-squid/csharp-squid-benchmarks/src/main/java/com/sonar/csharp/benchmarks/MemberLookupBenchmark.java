@@ -0,0 +1,116 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Benchmarks
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.benchmarks;
+
+import com.google.common.collect.Lists;
+import com.sonar.csharp.squid.api.CSharpMetric;
+import com.sonar.csharp.squid.api.source.SourceClass;
+import com.sonar.csharp.squid.api.source.SourceMember;
+import com.sonar.csharp.squid.api.source.SourceMembers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.squid.api.SourceCode;
+import org.sonar.squid.api.SourceFile;
+import org.sonar.squid.api.SourceProject;
+import org.sonar.squid.indexer.QueryByParent;
+import org.sonar.squid.indexer.QueryByType;
+import org.sonar.squid.indexer.SquidIndex;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup of the members of every file of a synthetic project, as done to compute the method complexity distributions: searching the
+ * index costs a scan of the whole index per file, walking the tree of each file only costs the size of that file.
+ * <br/>
+ * On 10,000 files, the index search takes minutes, the tree walk less than a tenth of a second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class MemberLookupBenchmark {
+
+  private static final int CLASSES_PER_FILE = 2;
+  private static final int MEMBERS_PER_CLASS = 5;
+
+  @Param({"1000", "10000"})
+  public int files;
+
+  private final SquidIndex index = new SquidIndex();
+  private final List<SourceFile> sourceFiles = Lists.newArrayList();
+
+  @Setup
+  public void setUp() {
+    SourceProject project = new SourceProject("C# Project");
+    project.setSourceCodeIndexer(index);
+    index.index(project);
+    for (int i = 0; i < files; i++) {
+      SourceFile sourceFile = new SourceFile("File" + i + ".cs");
+      project.addChild(sourceFile);
+      for (int j = 0; j < CLASSES_PER_FILE; j++) {
+        SourceClass sourceClass = new SourceClass(sourceFile.getKey() + ":Class" + j, "Class" + j);
+        sourceFile.addChild(sourceClass);
+        index.index(sourceClass);
+        for (int k = 0; k < MEMBERS_PER_CLASS; k++) {
+          SourceMember sourceMember = new SourceMember(sourceClass, "Method" + k, k + 1);
+          sourceMember.setMeasure(CSharpMetric.COMPLEXITY, k + 1);
+          sourceClass.addChild(sourceMember);
+          index.index(sourceMember);
+        }
+      }
+      sourceFiles.add(sourceFile);
+    }
+  }
+
+  @Benchmark
+  public double indexSearch() {
+    double complexity = 0;
+    for (SourceFile sourceFile : sourceFiles) {
+      for (SourceCode member : index.search(new QueryByParent(sourceFile), new QueryByType(SourceMember.class))) {
+        complexity += member.getDouble(CSharpMetric.COMPLEXITY);
+      }
+    }
+    return complexity;
+  }
+
+  @Benchmark
+  public double treeWalk() {
+    double complexity = 0;
+    for (SourceFile sourceFile : sourceFiles) {
+      for (SourceMember member : SourceMembers.of(sourceFile)) {
+        complexity += member.getDouble(CSharpMetric.COMPLEXITY);
+      }
+    }
+    return complexity;
+  }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Benchmarks
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.benchmarks;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.sonar.csharp.checks.CheckList;
+import com.sonar.csharp.squid.CSharpConfiguration;
+import com.sonar.csharp.squid.metric.CSharpComplexityVisitor;
+import com.sonar.csharp.squid.metric.CSharpPublicApiVisitor;
+import com.sonar.csharp.squid.parser.CSharpParser;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.AstNodeType;
+import com.sonar.sslr.api.AstVisitor;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.impl.ast.AstWalker;
+import com.sonar.sslr.squid.SquidAstVisitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of dispatching the nodes of an already parsed file to visitors subscribed to the same node types as all the checks and the
+ * complexity and public API visitors, but doing nothing: this is the most any other way of dispatching the nodes could save.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class VisitorDispatchBenchmark {
+
+  private AstNode ast;
+  private final List<SubscriptionsOnlyVisitor> visitors = Lists.newArrayList();
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setUp(CorpusFile corpusFile) throws Exception {
+    ast = CSharpParser.create(new CSharpConfiguration(Charsets.UTF_8)).parse(corpusFile.getSource());
+
+    List<SquidAstVisitor<Grammar>> realVisitors = Lists.newArrayList();
+    for (Class check : CheckList.getChecks()) {
+      realVisitors.add((SquidAstVisitor<Grammar>) check.newInstance());
+    }
+    realVisitors.add(new CSharpComplexityVisitor());
+    realVisitors.add(new CSharpPublicApiVisitor());
+
+    for (SquidAstVisitor<Grammar> realVisitor : realVisitors) {
+      realVisitor.init();
+      visitors.add(new SubscriptionsOnlyVisitor(realVisitor.getAstNodeTypesToVisit()));
+    }
+  }
+
+  @Benchmark
+  public int walk() {
+    new AstWalker(visitors).walkAndVisit(ast);
+    int visits = 0;
+    for (SubscriptionsOnlyVisitor visitor : visitors) {
+      visits += visitor.visits;
+      visitor.visits = 0;
+    }
+    return visits;
+  }
+
+  private static class SubscriptionsOnlyVisitor implements AstVisitor {
+
+    private final List<AstNodeType> nodeTypesToVisit;
+    private int visits;
+
+    public SubscriptionsOnlyVisitor(List<AstNodeType> nodeTypesToVisit) {
+      this.nodeTypesToVisit = nodeTypesToVisit;
+    }
+
+    public List<AstNodeType> getAstNodeTypesToVisit() {
+      return nodeTypesToVisit;
+    }
+
+    public void visitFile(AstNode astNode) {
+    }
+
+    public void visitNode(AstNode astNode) {
+      visits++;
+    }
+
+    public void leaveNode(AstNode astNode) {
+    }
+
+    public void leaveFile(AstNode astNode) {
+    }
+
+  }
+
+}
@@ -19,13 +19,43 @@
  */
 package com.sonar.csharp.squid;
 
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
 import org.sonar.squid.api.SquidConfiguration;
 
+import java.io.File;
 import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Set;
 
 public class CSharpConfiguration extends SquidConfiguration {
 
+  /**
+   * Grammar rules for which the parser keeps the matches, to avoid matching them again when backtracking.
+   */
+  public enum Memoization {
+    /**
+     * All the rules: fastest, but the parsing state of a big file can become huge.
+     */
+    ALL_RULES,
+    /**
+     * Only the rules which are heavily backtracked: types, expressions and statements.
+     */
+    BACKTRACKED_RULES,
+    /**
+     * No rule: smallest parsing state, but slowest parsing.
+     */
+    NONE
+  }
+
   private boolean ignoreHeaderComments = true;
+  private Memoization memoization = Memoization.ALL_RULES;
+  private boolean errorRecovery = false;
+  private Set<String> preprocessorSymbols;
+  private Set<File> unparsedFiles = ImmutableSet.of();
+  private long maxParsedFileSize = 0;
+  private int maxParsedFileLines = 0;
+  private int maxParsedFileTokens = 0;
 
   public CSharpConfiguration(Charset charset) {
     super(charset);
@@ -43,4 +73,87 @@ public class CSharpConfiguration extends SquidConfiguration {
     return ignoreHeaderComments;
   }
 
+  public void setMemoization(Memoization memoization) {
+    this.memoization = memoization;
+  }
+
+  public Memoization getMemoization() {
+    return memoization;
+  }
+
+  /**
+   * @param errorRecovery
+   *          true to skip the members and statements which cannot be parsed, instead of failing on the whole file
+   */
+  public void setErrorRecovery(boolean errorRecovery) {
+    this.errorRecovery = errorRecovery;
+  }
+
+  public boolean getErrorRecovery() {
+    return errorRecovery;
+  }
+
+  /**
+   * @param preprocessorSymbols
+   *          the symbols against which the conditional compilation directives are evaluated, the inactive regions being skipped, or null
+   *          to parse all the regions
+   */
+  public void setPreprocessorSymbols(Collection<String> preprocessorSymbols) {
+    this.preprocessorSymbols = preprocessorSymbols == null ? null : ImmutableSortedSet.copyOf(preprocessorSymbols);
+  }
+
+  public Set<String> getPreprocessorSymbols() {
+    return preprocessorSymbols;
+  }
+
+  /**
+   * @param unparsedFiles
+   *          the files which are only tokenized, without building their syntax tree: the line metrics and the token based checks are
+   *          computed on them, but not the metrics and checks which rely on the syntax tree
+   */
+  public void setUnparsedFiles(Collection<File> unparsedFiles) {
+    this.unparsedFiles = ImmutableSet.copyOf(unparsedFiles);
+  }
+
+  public Set<File> getUnparsedFiles() {
+    return unparsedFiles;
+  }
+
+  /**
+   * @param maxParsedFileSize
+   *          the size in bytes above which a file is not parsed, as the ones given to {@link #setUnparsedFiles(Collection)}, or 0 for no
+   *          limit
+   */
+  public void setMaxParsedFileSize(long maxParsedFileSize) {
+    this.maxParsedFileSize = maxParsedFileSize;
+  }
+
+  public long getMaxParsedFileSize() {
+    return maxParsedFileSize;
+  }
+
+  /**
+   * @param maxParsedFileLines
+   *          the number of lines above which a file is not parsed, or 0 for no limit
+   */
+  public void setMaxParsedFileLines(int maxParsedFileLines) {
+    this.maxParsedFileLines = maxParsedFileLines;
+  }
+
+  public int getMaxParsedFileLines() {
+    return maxParsedFileLines;
+  }
+
+  /**
+   * @param maxParsedFileTokens
+   *          the number of tokens above which a file is not parsed, or 0 for no limit
+   */
+  public void setMaxParsedFileTokens(int maxParsedFileTokens) {
+    this.maxParsedFileTokens = maxParsedFileTokens;
+  }
+
+  public int getMaxParsedFileTokens() {
+    return maxParsedFileTokens;
+  }
+
 }
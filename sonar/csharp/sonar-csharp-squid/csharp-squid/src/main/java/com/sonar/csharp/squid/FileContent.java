@@ -0,0 +1,88 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid;
+
+import com.google.common.collect.Lists;
+
+import java.nio.CharBuffer;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Content of the file being scanned, as read and decoded by the lexer: it is shared with the visitors so that they do not have to read
+ * the file again. Each scanner has its own instance, whose content changes with every file.
+ */
+public final class FileContent {
+
+  private static final char[] EMPTY = new char[0];
+
+  private char[] chars = EMPTY;
+  private List<String> lines;
+
+  /**
+   * Called by the lexer before it tokenizes a file.
+   */
+  public void setChars(char[] chars) {
+    this.chars = chars;
+    this.lines = null;
+  }
+
+  /**
+   * Called once a file has been scanned, so that its content can be garbage collected.
+   */
+  public void clear() {
+    setChars(EMPTY);
+  }
+
+  public CharSequence getChars() {
+    return CharBuffer.wrap(chars);
+  }
+
+  /**
+   * Lines of the file, without their terminators, split like {@link com.google.common.io.Files#readLines}: on "\n", "\r" and "\r\n".
+   */
+  public List<String> getLines() {
+    if (lines == null) {
+      lines = Collections.unmodifiableList(splitLines(chars));
+    }
+    return lines;
+  }
+
+  private static List<String> splitLines(char[] chars) {
+    List<String> result = Lists.newArrayList();
+    int start = 0;
+    int i = 0;
+    while (i < chars.length) {
+      char c = chars[i];
+      if (c == '\n' || c == '\r') {
+        result.add(new String(chars, start, i - start));
+        i += c == '\r' && i + 1 < chars.length && chars[i + 1] == '\n' ? 2 : 1;
+        start = i;
+      } else {
+        i++;
+      }
+    }
+    if (start < chars.length) {
+      result.add(new String(chars, start, chars.length - start));
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.api.source;
+
+import com.google.common.collect.Lists;
+import org.sonar.squid.api.SourceCode;
+
+import java.util.List;
+
+/**
+ * Lookup of the members of a piece of code, through the Squid tree rather than through the index: the cost depends on the size of the
+ * given code, not on the size of the whole project.
+ */
+public final class SourceMembers {
+
+  private SourceMembers() {
+  }
+
+  /**
+   * @return the members declared in the given code (typically a file), including the ones of its nested types
+   */
+  public static List<SourceMember> of(SourceCode sourceCode) {
+    List<SourceMember> result = Lists.newArrayList();
+    addMembers(sourceCode, result);
+    return result;
+  }
+
+  private static void addMembers(SourceCode sourceCode, List<SourceMember> members) {
+    if (sourceCode.hasChildren()) {
+      for (SourceCode child : sourceCode.getChildren()) {
+        if (child instanceof SourceMember) {
+          members.add((SourceMember) child);
+        }
+        addMembers(child, members);
+      }
+    }
+  }
+
+}
@@ -19,45 +19,54 @@
  */
 package com.sonar.csharp.squid.lexer;
 
+import com.google.common.collect.ImmutableMap;
 import com.sonar.csharp.squid.CSharpConfiguration;
+import com.sonar.csharp.squid.FileContent;
 import com.sonar.csharp.squid.api.CSharpKeyword;
 import com.sonar.csharp.squid.api.CSharpPunctuator;
 import com.sonar.csharp.squid.api.CSharpTokenType;
+import com.sonar.csharp.squid.lexer.preprocessors.ConditionalCompilationPreprocessor;
 import com.sonar.csharp.squid.lexer.preprocessors.StandardPreprocessorLinePreprocessor;
+import com.sonar.csharp.squid.lexer.preprocessors.UnparsedFilePreprocessor;
 import com.sonar.sslr.api.Preprocessor;
+import com.sonar.sslr.api.TokenType;
 import com.sonar.sslr.impl.Lexer;
 import com.sonar.sslr.impl.channel.BlackHoleChannel;
 import com.sonar.sslr.impl.channel.BomCharacterChannel;
-import com.sonar.sslr.impl.channel.IdentifierAndKeywordChannel;
 import com.sonar.sslr.impl.channel.PunctuatorChannel;
 import com.sonar.sslr.impl.channel.UnknownCharacterChannel;
 
-import static com.sonar.sslr.impl.channel.RegexpChannelBuilder.ANY_CHAR;
-import static com.sonar.sslr.impl.channel.RegexpChannelBuilder.DIGIT;
-import static com.sonar.sslr.impl.channel.RegexpChannelBuilder.HEXA_DIGIT;
+import java.util.Map;
+import java.util.regex.Pattern;
+
 import static com.sonar.sslr.impl.channel.RegexpChannelBuilder.anyButNot;
-import static com.sonar.sslr.impl.channel.RegexpChannelBuilder.commentRegexp;
-import static com.sonar.sslr.impl.channel.RegexpChannelBuilder.g;
 import static com.sonar.sslr.impl.channel.RegexpChannelBuilder.o2n;
 import static com.sonar.sslr.impl.channel.RegexpChannelBuilder.one2n;
-import static com.sonar.sslr.impl.channel.RegexpChannelBuilder.opt;
 import static com.sonar.sslr.impl.channel.RegexpChannelBuilder.or;
-import static com.sonar.sslr.impl.channel.RegexpChannelBuilder.regexp;
 
 /**
  * Lexer for the C# language.
  */
 public final class CSharpLexer {
 
-  private static final String INT_SUFFIX = "(((U|u)(L|l)?)|((L|l)(u|U)?))";
-  private static final String REAL_SUFFIX = "(F|f|D|d|M|m)";
-  private static final String EXP = g("[Ee]" + opt("[+-]") + one2n(DIGIT));
+  /*
+   * Compiled once and shared by all the lexers: only the matchers are allocated per lexer, as they are stateful. The literal ones are only
+   * used when the literal is not properly closed, to get the same tokens as with a regular expression channel.
+   */
+  private static final Pattern STRING_LITERAL = compile("\"", o2n(or("\\\\.", anyButNot("\"", "\\n", "\\r"))), "\"");
+  private static final Pattern VERBATIM_STRING_LITERAL = compile("@\"", o2n(or("\"\"", anyButNot("\""))), "\"");
+  private static final Pattern CHARACTER_LITERAL = compile("'", one2n(or("\\\\.", anyButNot("'", "\\n", "\\r"))), "'");
+  private static final Pattern PREPROCESSOR = compile("#[^\\r\\n]*");
+
+  private static final Map<String, TokenType> KEYWORDS;
 
-  private static final String LETTER_CHAR = g("\\p{Lu}|\\p{Ll}|\\p{Lt}|\\p{Lm}|\\p{Lo}|\\p{Nl}");
-  private static final String COMBINING_CHAR = g("\\p{Mn}|\\p{Mc}");
-  private static final String DECIMAL_DIGIT_CHAR = g("\\p{Nd}");
-  private static final String CONNECTING_CHAR = g("\\p{Pc}");
-  private static final String FORMATTING_CHAR = g("\\p{Cf}");
+  static {
+    ImmutableMap.Builder<String, TokenType> keywords = ImmutableMap.builder();
+    for (CSharpKeyword keyword : CSharpKeyword.values()) {
+      keywords.put(keyword.getValue(), keyword);
+    }
+    KEYWORDS = keywords.build();
+  }
 
   private CSharpLexer() {
   }
@@ -67,32 +76,38 @@ public final class CSharpLexer {
   }
 
   public static Lexer create(CSharpConfiguration conf, Preprocessor... preprocessors) {
+    return create(conf, null, preprocessors);
+  }
+
+  /**
+   * @param fileContent
+   *          the holder to which the content of each file is handed before it is tokenized, or null if it is not needed
+   */
+  public static Lexer create(CSharpConfiguration conf, FileContent fileContent, Preprocessor... preprocessors) {
     Lexer.Builder builder = Lexer.builder()
         .withCharset(conf.getCharset())
 
-        .withFailIfNoChannelToConsumeOneCharacter(true)
+        .withFailIfNoChannelToConsumeOneCharacter(true);
+
+    if (fileContent != null) {
+      builder.withChannel(new FileContentChannel(fileContent));
+    }
 
+    builder
         // Comments
-        .withChannel(commentRegexp("//", o2n("[^\\n\\r]")))
-        .withChannel(commentRegexp("/\\*", ANY_CHAR + "*?", "\\*/"))
+        .withChannel(new CommentChannel())
         // Literals : Strings
-        .withChannel(regexp(CSharpTokenType.STRING_LITERAL, "\"", o2n(or("\\\\.", anyButNot("\"", "\\n", "\\r"))), "\""))
-        .withChannel(regexp(CSharpTokenType.STRING_LITERAL, "@\"", o2n(or("\"\"", anyButNot("\""))), "\""))
+        .withChannel(new QuotedLiteralChannel(CSharpTokenType.STRING_LITERAL, '"', true, STRING_LITERAL))
+        .withChannel(new VerbatimStringLiteralChannel(VERBATIM_STRING_LITERAL))
         // Literals : Character
-        .withChannel(regexp(CSharpTokenType.CHARACTER_LITERAL, "'", one2n(or("\\\\.", anyButNot("'", "\\n", "\\r"))), "'"))
-        // Literals : Reals
-        .withChannel(regexp(CSharpTokenType.REAL_LITERAL, o2n(DIGIT), "\\.", one2n(DIGIT), opt(EXP), opt(REAL_SUFFIX)))
-        .withChannel(regexp(CSharpTokenType.REAL_LITERAL, one2n(DIGIT), EXP, opt(REAL_SUFFIX)))
-        .withChannel(regexp(CSharpTokenType.REAL_LITERAL, one2n(DIGIT), REAL_SUFFIX))
-        // Literals : Integers
-        .withChannel(regexp(CSharpTokenType.INTEGER_HEX_LITERAL, "0[xX]", one2n(HEXA_DIGIT), opt(INT_SUFFIX)))
-        .withChannel(regexp(CSharpTokenType.INTEGER_DEC_LITERAL, one2n(DIGIT), opt(INT_SUFFIX)))
+        .withChannel(new QuotedLiteralChannel(CSharpTokenType.CHARACTER_LITERAL, '\'', false, CHARACTER_LITERAL))
+        // Literals : Reals and integers
+        .withChannel(new NumericLiteralChannel())
         // Identifiers, keywords, punctuators and operators
-        .withChannel(new IdentifierAndKeywordChannel(g(opt("@"), or(LETTER_CHAR, "_"),
-            o2n(or(LETTER_CHAR, DECIMAL_DIGIT_CHAR, CONNECTING_CHAR, COMBINING_CHAR, FORMATTING_CHAR))), true, CSharpKeyword.values()))
+        .withChannel(new IdentifierOrKeywordChannel(KEYWORDS))
         .withChannel(new PunctuatorChannel(CSharpPunctuator.values()))
         // Preprocessor directives
-        .withChannel(regexp(CSharpTokenType.PREPROCESSOR, "#[^\\r\\n]*"))
+        .withChannel(CompiledRegexpChannel.token(CSharpTokenType.PREPROCESSOR, PREPROCESSOR))
         // Others
         .withChannel(new BlackHoleChannel("[\\s]"))
         .withChannel(new BomCharacterChannel())
@@ -103,10 +118,32 @@ public final class CSharpLexer {
         builder.withPreprocessor(preprocessor);
       }
     } else {
-      builder.withPreprocessor(new StandardPreprocessorLinePreprocessor());
+      if (conf.getPreprocessorSymbols() != null) {
+        builder.withPreprocessor(new ConditionalCompilationPreprocessor(conf.getPreprocessorSymbols()));
+      } else {
+        builder.withPreprocessor(new StandardPreprocessorLinePreprocessor());
+      }
+      if (hasUnparsedFiles(conf)) {
+        builder.withPreprocessor(new UnparsedFilePreprocessor(conf));
+      }
     }
 
     return builder.build();
   }
 
+  private static boolean hasUnparsedFiles(CSharpConfiguration conf) {
+    return !conf.getUnparsedFiles().isEmpty()
+      || conf.getMaxParsedFileSize() > 0
+      || conf.getMaxParsedFileLines() > 0
+      || conf.getMaxParsedFileTokens() > 0;
+  }
+
+  private static Pattern compile(String... regexpPieces) {
+    StringBuilder regexp = new StringBuilder();
+    for (String regexpPiece : regexpPieces) {
+      regexp.append(regexpPiece);
+    }
+    return Pattern.compile(regexp.toString());
+  }
+
 }
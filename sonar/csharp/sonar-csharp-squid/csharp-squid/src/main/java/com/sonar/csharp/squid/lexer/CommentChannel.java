@@ -0,0 +1,71 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.lexer;
+
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.TokenType;
+import com.sonar.sslr.api.Trivia;
+import com.sonar.sslr.impl.Lexer;
+import org.sonar.channel.CodeReader;
+
+/**
+ * Single line comments, up to the end of the line, and multi-line comments, up to the first "*&#47;".
+ */
+final class CommentChannel extends ScanningChannel {
+
+  CommentChannel() {
+    super(null);
+  }
+
+  @Override
+  int scan(CodeReader code) {
+    if (charAt(code, 0) != '/') {
+      return 0;
+    }
+    int second = charAt(code, 1);
+    if (second == '/') {
+      int i = 2;
+      for (int c = charAt(code, i); c != -1 && c != '\n' && c != '\r'; c = charAt(code, ++i)) {
+        // up to the end of the line
+      }
+      return i;
+    }
+    if (second == '*') {
+      for (int i = 2; i + 1 < code.length(); i++) {
+        if (code.charAt(i) == '*' && code.charAt(i + 1) == '/') {
+          return i + 2;
+        }
+      }
+    }
+    return 0;
+  }
+
+  @Override
+  TokenType getTokenType(String value) {
+    return GenericTokenType.COMMENT;
+  }
+
+  @Override
+  void addToken(Lexer lexer, Token token) {
+    lexer.addTrivia(Trivia.createComment(token));
+  }
+
+}
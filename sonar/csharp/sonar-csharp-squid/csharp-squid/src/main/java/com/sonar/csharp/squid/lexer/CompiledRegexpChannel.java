@@ -0,0 +1,83 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.lexer;
+
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.TokenType;
+import com.sonar.sslr.impl.Lexer;
+import com.sonar.sslr.impl.LexerException;
+import org.sonar.channel.Channel;
+import org.sonar.channel.CodeReader;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Same as the SSLR regexp channels, but built upon a {@link Pattern} compiled once and shared by all the lexers: only the
+ * {@link Matcher} is specific to a channel instance.
+ */
+final class CompiledRegexpChannel extends Channel<Lexer> {
+
+  private final Pattern pattern;
+  private final Matcher matcher;
+  private final TokenType type;
+  private final StringBuilder tmpBuilder = new StringBuilder();
+  private final Token.Builder tokenBuilder = Token.builder();
+
+  private CompiledRegexpChannel(Pattern pattern, TokenType type) {
+    this.pattern = pattern;
+    this.matcher = pattern.matcher("");
+    this.type = type;
+  }
+
+  /**
+   * Equivalent of {@link com.sonar.sslr.impl.channel.RegexpChannel}.
+   */
+  static CompiledRegexpChannel token(TokenType type, Pattern pattern) {
+    return new CompiledRegexpChannel(pattern, type);
+  }
+
+  @Override
+  public boolean consume(CodeReader code, Lexer lexer) {
+    try {
+      if (code.popTo(matcher, tmpBuilder) > 0) {
+        String value = tmpBuilder.toString();
+
+        Token token = tokenBuilder
+            .setType(type)
+            .setValueAndOriginalValue(value)
+            .setURI(lexer.getURI())
+            .setLine(code.getPreviousCursor().getLine())
+            .setColumn(code.getPreviousCursor().getColumn())
+            .build();
+
+        lexer.addToken(token);
+
+        tmpBuilder.delete(0, tmpBuilder.length());
+        return true;
+      }
+      return false;
+    } catch (StackOverflowError e) {
+      throw new LexerException("The regular expression " + pattern.pattern() + " has led to a stack overflow error. "
+        + "This error is certainly due to an inefficient use of alternations. See http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=5050507", e);
+    }
+  }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.lexer;
+
+import com.sonar.csharp.squid.FileContent;
+import com.sonar.sslr.impl.Lexer;
+import org.sonar.channel.Channel;
+import org.sonar.channel.CodeReader;
+
+/**
+ * Hands the content of the file to a {@link FileContent} when the lexer starts reading it. Never consumes any character: must be the
+ * first channel of the lexer, so that it is called at the very beginning of the file.
+ */
+final class FileContentChannel extends Channel<Lexer> {
+
+  private final FileContent fileContent;
+
+  FileContentChannel(FileContent fileContent) {
+    this.fileContent = fileContent;
+  }
+
+  @Override
+  public boolean consume(CodeReader code, Lexer lexer) {
+    if (code.getLinePosition() == 1 && code.getColumnPosition() == 0) {
+      char[] chars = new char[code.length()];
+      for (int i = 0; i < chars.length; i++) {
+        chars[i] = code.charAt(i);
+      }
+      fileContent.setChars(chars);
+    }
+    return false;
+  }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.lexer;
+
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.TokenType;
+import org.sonar.channel.CodeReader;
+
+import java.util.Map;
+
+/**
+ * Identifiers, optionally prefixed by "@", and keywords. ASCII characters are checked directly, the Unicode categories of the C#
+ * specification are only looked up for the other ones.
+ */
+final class IdentifierOrKeywordChannel extends ScanningChannel {
+
+  private static final int ASCII_LIMIT = 128;
+
+  private final Map<String, TokenType> keywords;
+
+  IdentifierOrKeywordChannel(Map<String, TokenType> keywords) {
+    super(null);
+    this.keywords = keywords;
+  }
+
+  @Override
+  int scan(CodeReader code) {
+    int i = charAt(code, 0) == '@' ? 1 : 0;
+    if (i >= code.length() || !isIdentifierStart(code, i)) {
+      return 0;
+    }
+    i += Character.charCount(Character.codePointAt(code, i));
+    while (i < code.length() && isIdentifierPart(code, i)) {
+      i += Character.charCount(Character.codePointAt(code, i));
+    }
+    return i;
+  }
+
+  @Override
+  TokenType getTokenType(String value) {
+    TokenType keyword = keywords.get(value);
+    return keyword == null ? GenericTokenType.IDENTIFIER : keyword;
+  }
+
+  private static boolean isIdentifierStart(CodeReader code, int offset) {
+    char c = code.charAt(offset);
+    if (c < ASCII_LIMIT) {
+      return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+    return isLetter(Character.getType(Character.codePointAt(code, offset)));
+  }
+
+  private static boolean isIdentifierPart(CodeReader code, int offset) {
+    char c = code.charAt(offset);
+    if (c < ASCII_LIMIT) {
+      return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c) || c == '_';
+    }
+    int type = Character.getType(Character.codePointAt(code, offset));
+    return isLetter(type)
+      || type == Character.DECIMAL_DIGIT_NUMBER
+      || type == Character.CONNECTOR_PUNCTUATION
+      || type == Character.NON_SPACING_MARK
+      || type == Character.COMBINING_SPACING_MARK
+      || type == Character.FORMAT;
+  }
+
+  private static boolean isLetter(int type) {
+    return type == Character.UPPERCASE_LETTER
+      || type == Character.LOWERCASE_LETTER
+      || type == Character.TITLECASE_LETTER
+      || type == Character.MODIFIER_LETTER
+      || type == Character.OTHER_LETTER
+      || type == Character.LETTER_NUMBER;
+  }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.lexer;
+
+import com.sonar.csharp.squid.api.CSharpTokenType;
+import com.sonar.sslr.api.TokenType;
+import org.sonar.channel.CodeReader;
+
+/**
+ * Real, hexadecimal and decimal integer literals, with their suffixes.
+ */
+final class NumericLiteralChannel extends ScanningChannel {
+
+  private TokenType type;
+
+  NumericLiteralChannel() {
+    super(null);
+  }
+
+  @Override
+  int scan(CodeReader code) {
+    int first = charAt(code, 0);
+    if (!isDigit(first) && first != '.') {
+      return 0;
+    }
+
+    int digits = countDigits(code, 0);
+    if (charAt(code, digits) == '.' && isDigit(charAt(code, digits + 1))) {
+      int i = digits + 1 + countDigits(code, digits + 1);
+      i += exponentLength(code, i);
+      type = CSharpTokenType.REAL_LITERAL;
+      return i + realSuffixLength(code, i);
+    }
+    if (digits == 0) {
+      return 0;
+    }
+
+    int exponent = exponentLength(code, digits);
+    if (exponent > 0) {
+      type = CSharpTokenType.REAL_LITERAL;
+      return digits + exponent + realSuffixLength(code, digits + exponent);
+    }
+    if (realSuffixLength(code, digits) > 0) {
+      type = CSharpTokenType.REAL_LITERAL;
+      return digits + 1;
+    }
+
+    if (first == '0' && (charAt(code, 1) == 'x' || charAt(code, 1) == 'X')) {
+      int hexaDigits = countHexaDigits(code, 2);
+      if (hexaDigits > 0) {
+        type = CSharpTokenType.INTEGER_HEX_LITERAL;
+        return 2 + hexaDigits + integerSuffixLength(code, 2 + hexaDigits);
+      }
+    }
+
+    type = CSharpTokenType.INTEGER_DEC_LITERAL;
+    return digits + integerSuffixLength(code, digits);
+  }
+
+  @Override
+  TokenType getTokenType(String value) {
+    return type;
+  }
+
+  private static int exponentLength(CodeReader code, int offset) {
+    int c = charAt(code, offset);
+    if (c != 'e' && c != 'E') {
+      return 0;
+    }
+    int i = offset + 1;
+    c = charAt(code, i);
+    if (c == '+' || c == '-') {
+      i++;
+    }
+    int digits = countDigits(code, i);
+    return digits > 0 ? i + digits - offset : 0;
+  }
+
+  private static int realSuffixLength(CodeReader code, int offset) {
+    switch (charAt(code, offset)) {
+      case 'F':
+      case 'f':
+      case 'D':
+      case 'd':
+      case 'M':
+      case 'm':
+        return 1;
+      default:
+        return 0;
+    }
+  }
+
+  private static int integerSuffixLength(CodeReader code, int offset) {
+    int c = charAt(code, offset);
+    int next = charAt(code, offset + 1);
+    if (c == 'U' || c == 'u') {
+      return next == 'L' || next == 'l' ? 2 : 1;
+    }
+    if (c == 'L' || c == 'l') {
+      return next == 'U' || next == 'u' ? 2 : 1;
+    }
+    return 0;
+  }
+
+  private static int countHexaDigits(CodeReader code, int offset) {
+    int i = offset;
+    for (int c = charAt(code, i); isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F'); c = charAt(code, ++i)) {
+      // up to the last hexadecimal digit
+    }
+    return i - offset;
+  }
+
+}
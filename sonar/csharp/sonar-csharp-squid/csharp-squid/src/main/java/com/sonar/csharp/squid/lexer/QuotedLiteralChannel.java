@@ -0,0 +1,80 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.lexer;
+
+import com.sonar.sslr.api.TokenType;
+import org.sonar.channel.CodeReader;
+
+import java.util.regex.Pattern;
+
+/**
+ * Regular string literals and character literals: characters up to the closing quote, on a single line, with backslash escapes.
+ */
+final class QuotedLiteralChannel extends ScanningChannel {
+
+  private final char quote;
+  private final boolean emptyAllowed;
+  private final TokenType type;
+
+  /**
+   * @param fallback
+   *          the regular expression to use when the literal is not properly closed
+   */
+  QuotedLiteralChannel(TokenType type, char quote, boolean emptyAllowed, Pattern fallback) {
+    super(fallback);
+    this.type = type;
+    this.quote = quote;
+    this.emptyAllowed = emptyAllowed;
+  }
+
+  @Override
+  int scan(CodeReader code) {
+    if (charAt(code, 0) != quote) {
+      return 0;
+    }
+    int i = 1;
+    int c = charAt(code, i);
+    while (c != -1 && c != quote && c != '\n' && c != '\r') {
+      if (c == '\\' && charAt(code, i + 1) != -1 && !isLineTerminator(charAt(code, i + 1))) {
+        i += 2;
+      } else {
+        i++;
+      }
+      c = charAt(code, i);
+    }
+    if (c != quote) {
+      return UNDECIDED;
+    }
+    return i > 1 || emptyAllowed ? i + 1 : 0;
+  }
+
+  @Override
+  TokenType getTokenType(String value) {
+    return type;
+  }
+
+  /**
+   * The characters not matched by "." in a regular expression.
+   */
+  private static boolean isLineTerminator(int c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+}
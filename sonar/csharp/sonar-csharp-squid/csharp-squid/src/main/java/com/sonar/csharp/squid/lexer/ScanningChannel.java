@@ -0,0 +1,123 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.lexer;
+
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.TokenType;
+import com.sonar.sslr.impl.Lexer;
+import com.sonar.sslr.impl.LexerException;
+import org.sonar.channel.Channel;
+import org.sonar.channel.CodeReader;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Base class of the channels recognizing their tokens by looking at the characters one by one, instead of using a regular expression.
+ * When the outcome depends on backtracking, which only happens on malformed code, a channel can still give up and let its equivalent
+ * regular expression decide.
+ */
+abstract class ScanningChannel extends Channel<Lexer> {
+
+  /**
+   * Returned by {@link #scan(CodeReader)} when the regular expression must decide.
+   */
+  static final int UNDECIDED = -1;
+
+  private final Matcher fallbackMatcher;
+  private final StringBuilder tmpBuilder = new StringBuilder();
+  private final Token.Builder tokenBuilder = Token.builder();
+
+  ScanningChannel(Pattern fallback) {
+    this.fallbackMatcher = fallback == null ? null : fallback.matcher("");
+  }
+
+  /**
+   * @return the number of characters of the token starting at the current position of the code, 0 if there is none, or
+   *         {@link #UNDECIDED}
+   */
+  abstract int scan(CodeReader code);
+
+  abstract TokenType getTokenType(String value);
+
+  void addToken(Lexer lexer, Token token) {
+    lexer.addToken(token);
+  }
+
+  @Override
+  public final boolean consume(CodeReader code, Lexer lexer) {
+    int length = scan(code);
+    if (length == UNDECIDED) {
+      length = matchFallback(code);
+    }
+    if (length == 0) {
+      return false;
+    }
+
+    int line = code.getLinePosition();
+    int column = code.getColumnPosition();
+    for (int i = 0; i < length; i++) {
+      code.pop(tmpBuilder);
+    }
+    String value = tmpBuilder.toString();
+    tmpBuilder.setLength(0);
+
+    Token token = tokenBuilder
+        .setType(getTokenType(value))
+        .setValueAndOriginalValue(value)
+        .setURI(lexer.getURI())
+        .setLine(line)
+        .setColumn(column)
+        .build();
+    addToken(lexer, token);
+    return true;
+  }
+
+  private int matchFallback(CodeReader code) {
+    try {
+      fallbackMatcher.reset(code);
+      return fallbackMatcher.lookingAt() ? fallbackMatcher.end() : 0;
+    } catch (StackOverflowError e) {
+      throw new LexerException("The regular expression " + fallbackMatcher.pattern().pattern() + " has led to a stack overflow error.", e);
+    } finally {
+      fallbackMatcher.reset("");
+    }
+  }
+
+  /**
+   * @return the character at the given offset from the current position, or -1 after the end of the code
+   */
+  static int charAt(CodeReader code, int offset) {
+    return offset < code.length() ? code.charAt(offset) : -1;
+  }
+
+  static boolean isDigit(int c) {
+    return c >= '0' && c <= '9';
+  }
+
+  static int countDigits(CodeReader code, int offset) {
+    int i = offset;
+    while (isDigit(charAt(code, i))) {
+      i++;
+    }
+    return i - offset;
+  }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.lexer;
+
+import com.sonar.csharp.squid.api.CSharpTokenType;
+import com.sonar.sslr.api.TokenType;
+import org.sonar.channel.CodeReader;
+
+import java.util.regex.Pattern;
+
+/**
+ * Verbatim string literals: characters up to the closing quote, on several lines if needed, with doubled quotes as only escape.
+ */
+final class VerbatimStringLiteralChannel extends ScanningChannel {
+
+  /**
+   * @param fallback
+   *          the regular expression to use when the literal is not properly closed
+   */
+  VerbatimStringLiteralChannel(Pattern fallback) {
+    super(fallback);
+  }
+
+  @Override
+  int scan(CodeReader code) {
+    if (charAt(code, 0) != '@' || charAt(code, 1) != '"') {
+      return 0;
+    }
+    int i = 2;
+    int c = charAt(code, i);
+    while (c != -1) {
+      if (c == '"') {
+        if (charAt(code, i + 1) != '"') {
+          return i + 1;
+        }
+        i += 2;
+      } else {
+        i++;
+      }
+      c = charAt(code, i);
+    }
+    return UNDECIDED;
+  }
+
+  @Override
+  TokenType getTokenType(String value) {
+    return CSharpTokenType.STRING_LITERAL;
+  }
+
+}
@@ -0,0 +1,287 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.lexer.preprocessors;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.sonar.csharp.squid.api.CSharpTokenType;
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.Preprocessor;
+import com.sonar.sslr.api.PreprocessorAction;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Evaluates the conditional compilation directives (#define, #undef, #if, #elif, #else and #endif) against a set of symbols, and turns
+ * the regions excluded from the compilation into skipped text, so that they are not parsed. As with
+ * {@link StandardPreprocessorLinePreprocessor}, every directive is itself turned into skipped text.
+ */
+public class ConditionalCompilationPreprocessor extends Preprocessor {
+
+  private final Set<String> initialSymbols;
+  private final Set<String> symbols = Sets.newHashSet();
+  private final LinkedList<Section> sections = Lists.newLinkedList();
+
+  /**
+   * @param symbols
+   *          the symbols defined for every file, on top of the ones defined by the #define directives of the file itself
+   */
+  public ConditionalCompilationPreprocessor(Collection<String> symbols) {
+    this.initialSymbols = ImmutableSet.copyOf(symbols);
+  }
+
+  @Override
+  public void init() {
+    symbols.clear();
+    symbols.addAll(initialSymbols);
+    sections.clear();
+  }
+
+  @Override
+  public PreprocessorAction process(List<Token> tokens) {
+    Token token = tokens.get(0);
+    if (token.getType() != CSharpTokenType.PREPROCESSOR) {
+      return PreprocessorAction.NO_OPERATION;
+    }
+
+    List<Trivia> trivia = Lists.newArrayList(Trivia.createSkippedText(token));
+    process(new Directive(token));
+    if (isActive()) {
+      return new PreprocessorAction(1, trivia, new ArrayList<Token>());
+    }
+
+    int end = getEndOfInactiveRegion(tokens);
+    if (end > 1) {
+      trivia.add(Trivia.createSkippedText(tokens.subList(1, end)));
+    }
+    return new PreprocessorAction(end, trivia, new ArrayList<Token>());
+  }
+
+  private void process(Directive directive) {
+    if ("if".equals(directive.name)) {
+      Section section = new Section(isActive());
+      section.enterBranch(evaluate(directive.argument));
+      sections.addFirst(section);
+    } else if ("elif".equals(directive.name) && !sections.isEmpty()) {
+      Section section = sections.getFirst();
+      section.enterBranch(!section.branchTaken && evaluate(directive.argument));
+    } else if ("else".equals(directive.name) && !sections.isEmpty()) {
+      Section section = sections.getFirst();
+      section.enterBranch(!section.branchTaken);
+    } else if ("endif".equals(directive.name) && !sections.isEmpty()) {
+      sections.removeFirst();
+    } else if ("define".equals(directive.name) && isActive()) {
+      symbols.add(directive.argument);
+    } else if ("undef".equals(directive.name) && isActive()) {
+      symbols.remove(directive.argument);
+    }
+  }
+
+  private boolean isActive() {
+    return sections.isEmpty() || sections.getFirst().active;
+  }
+
+  /**
+   * @return the index of the first token following the inactive region which starts at the given directive: the #elif, #else or #endif
+   *         directive which may end it, or the end of file
+   */
+  private static int getEndOfInactiveRegion(List<Token> tokens) {
+    int nestedSections = 0;
+    int i = 1;
+    while (i < tokens.size() && tokens.get(i).getType() != GenericTokenType.EOF) {
+      Token token = tokens.get(i);
+      if (token.getType() == CSharpTokenType.PREPROCESSOR) {
+        String name = new Directive(token).name;
+        if ("if".equals(name)) {
+          nestedSections++;
+        } else if ("endif".equals(name) && nestedSections > 0) {
+          nestedSections--;
+        } else if (nestedSections == 0 && ("elif".equals(name) || "else".equals(name) || "endif".equals(name))) {
+          break;
+        }
+      }
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * An expression which cannot be evaluated is considered true, so that the code it guards is parsed, as it is without this preprocessor.
+   */
+  private boolean evaluate(String expression) {
+    try {
+      ExpressionParser parser = new ExpressionParser(expression, symbols);
+      boolean result = parser.parseOr();
+      return result || !parser.atEnd();
+    } catch (IllegalArgumentException e) {
+      return true;
+    }
+  }
+
+  /**
+   * An #if ... #endif section: only the branch whose condition is true first is active, provided that the enclosing section is active.
+   */
+  private static final class Section {
+
+    private final boolean parentActive;
+    private boolean branchTaken;
+    private boolean active;
+
+    public Section(boolean parentActive) {
+      this.parentActive = parentActive;
+    }
+
+    public void enterBranch(boolean condition) {
+      active = parentActive && condition;
+      branchTaken |= condition;
+    }
+
+  }
+
+  private static final class Directive {
+
+    private final String name;
+    private final String argument;
+
+    public Directive(Token token) {
+      String value = token.getValue();
+      int i = 1;
+      while (i < value.length() && Character.isWhitespace(value.charAt(i))) {
+        i++;
+      }
+      int nameStart = i;
+      while (i < value.length() && Character.isLetter(value.charAt(i))) {
+        i++;
+      }
+      name = value.substring(nameStart, i);
+
+      String rest = value.substring(i);
+      int comment = rest.indexOf("//");
+      argument = (comment == -1 ? rest : rest.substring(0, comment)).trim();
+    }
+
+  }
+
+  /**
+   * Recursive descent parser of the preprocessing expressions: ||, &&, == and != operators, ! prefix, parentheses, true, false and
+   * symbols.
+   */
+  private static final class ExpressionParser {
+
+    private final String expression;
+    private final Set<String> symbols;
+    private int position;
+
+    public ExpressionParser(String expression, Set<String> symbols) {
+      this.expression = expression;
+      this.symbols = symbols;
+    }
+
+    public boolean atEnd() {
+      skipWhitespaces();
+      return position == expression.length();
+    }
+
+    public boolean parseOr() {
+      boolean result = parseAnd();
+      while (consume("||")) {
+        result |= parseAnd();
+      }
+      return result;
+    }
+
+    private boolean parseAnd() {
+      boolean result = parseEquality();
+      while (consume("&&")) {
+        result &= parseEquality();
+      }
+      return result;
+    }
+
+    private boolean parseEquality() {
+      boolean result = parseUnary();
+      while (true) {
+        if (consume("==")) {
+          result = result == parseUnary();
+        } else if (consume("!=")) {
+          result = result != parseUnary();
+        } else {
+          return result;
+        }
+      }
+    }
+
+    private boolean parseUnary() {
+      if (consume("!")) {
+        return !parseUnary();
+      }
+      if (consume("(")) {
+        boolean result = parseOr();
+        if (!consume(")")) {
+          throw new IllegalArgumentException("Missing closing parenthesis in " + expression);
+        }
+        return result;
+      }
+      return parseSymbol();
+    }
+
+    private boolean parseSymbol() {
+      skipWhitespaces();
+      int start = position;
+      while (position < expression.length() && Character.isJavaIdentifierPart(expression.charAt(position))) {
+        position++;
+      }
+      if (start == position) {
+        throw new IllegalArgumentException("Symbol expected in " + expression);
+      }
+      String symbol = expression.substring(start, position);
+      if ("true".equals(symbol)) {
+        return true;
+      } else if ("false".equals(symbol)) {
+        return false;
+      }
+      return symbols.contains(symbol);
+    }
+
+    private boolean consume(String operator) {
+      skipWhitespaces();
+      if (expression.startsWith(operator, position)) {
+        position += operator.length();
+        return true;
+      }
+      return false;
+    }
+
+    private void skipWhitespaces() {
+      while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+        position++;
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.lexer.preprocessors;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.sonar.csharp.squid.CSharpConfiguration;
+import com.sonar.csharp.squid.api.CSharpTokenType;
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.Preprocessor;
+import com.sonar.sslr.api.PreprocessorAction;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Puts an {@link CSharpTokenType#UNPARSED} token in front of the tokens of the files which are not to be parsed, so that the grammar
+ * takes them as they are instead of building their syntax tree. These are the files given by
+ * {@link CSharpConfiguration#getUnparsedFiles()}, and the ones which are too big to be parsed in a reasonable time and memory. Must come
+ * after the other preprocessors, to see the final tokens.
+ */
+public class UnparsedFilePreprocessor extends Preprocessor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(UnparsedFilePreprocessor.class);
+
+  private final Set<URI> unparsedFiles;
+  private final long maxFileSize;
+  private final int maxFileLines;
+  private final int maxFileTokens;
+  private boolean firstToken;
+
+  public UnparsedFilePreprocessor(CSharpConfiguration conf) {
+    ImmutableSet.Builder<URI> uris = ImmutableSet.builder();
+    for (File file : conf.getUnparsedFiles()) {
+      uris.add(file.toURI());
+    }
+    this.unparsedFiles = uris.build();
+    this.maxFileSize = conf.getMaxParsedFileSize();
+    this.maxFileLines = conf.getMaxParsedFileLines();
+    this.maxFileTokens = conf.getMaxParsedFileTokens();
+  }
+
+  @Override
+  public void init() {
+    firstToken = true;
+  }
+
+  @Override
+  public PreprocessorAction process(List<Token> tokens) {
+    if (!firstToken) {
+      return PreprocessorAction.NO_OPERATION;
+    }
+    firstToken = false;
+
+    Token token = tokens.get(0);
+    if (token.getType() == GenericTokenType.EOF) {
+      return PreprocessorAction.NO_OPERATION;
+    }
+    if (!unparsedFiles.contains(token.getURI()) && !isTooBig(tokens)) {
+      return PreprocessorAction.NO_OPERATION;
+    }
+    return new PreprocessorAction(0, new ArrayList<Trivia>(), Lists.newArrayList(createUnparsedToken(token)));
+  }
+
+  private boolean isTooBig(List<Token> tokens) {
+    URI uri = tokens.get(0).getURI();
+    File file = "file".equals(uri.getScheme()) ? new File(uri) : null;
+    long size = file == null ? 0 : file.length();
+    // the last token is the end of file
+    int lines = tokens.get(tokens.size() - 1).getLine();
+    int tokenCount = tokens.size() - 1;
+
+    String reason;
+    if (maxFileSize > 0 && size > maxFileSize) {
+      reason = size + " bytes, more than " + maxFileSize;
+    } else if (maxFileLines > 0 && lines > maxFileLines) {
+      reason = lines + " lines, more than " + maxFileLines;
+    } else if (maxFileTokens > 0 && tokenCount > maxFileTokens) {
+      reason = tokenCount + " tokens, more than " + maxFileTokens;
+    } else {
+      return false;
+    }
+    LOG.warn("The file {} has {}: it is not parsed, only its line metrics and the token based checks are computed.",
+        file == null ? uri : file.getAbsolutePath(), reason);
+    return true;
+  }
+
+  /**
+   * The marker is on the line of the first token, so that it does not add any line of code.
+   */
+  private static Token createUnparsedToken(Token firstToken) {
+    return Token.builder()
+        .setType(CSharpTokenType.UNPARSED)
+        .setValueAndOriginalValue("")
+        .setURI(firstToken.getURI())
+        .setLine(firstToken.getLine())
+        .setColumn(firstToken.getColumn())
+        .setGeneratedCode(true)
+        .build();
+  }
+
+}
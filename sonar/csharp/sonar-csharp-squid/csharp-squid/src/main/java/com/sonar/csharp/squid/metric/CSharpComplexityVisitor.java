@@ -67,6 +67,10 @@ public class CSharpComplexityVisitor extends SquidAstVisitor<Grammar> {
       // this is an empty declaration
       return;
     }
+    if (node.getParent() != null && node.getParent().is(CSharpGrammar.UNPARSED_CODE)) {
+      // the tokens of a file which is not parsed do not tell anything about its complexity
+      return;
+    }
     if (node.is(CSharpGrammar.RETURN_STATEMENT) && isLastReturnStatement(node)) {
       // last return of a block, do not count +1
       return;
@@ -19,7 +19,6 @@
  */
 package com.sonar.csharp.squid.metric;
 
-import com.google.common.collect.Sets;
 import com.sonar.csharp.squid.api.CSharpMetric;
 import com.sonar.sslr.api.AstAndTokenVisitor;
 import com.sonar.sslr.api.AstNode;
@@ -34,8 +33,8 @@ import org.sonar.api.measures.FileLinesContextFactory;
 import org.sonar.api.resources.File;
 import org.sonar.api.resources.Project;
 
+import java.util.BitSet;
 import java.util.List;
-import java.util.Set;
 
 /**
  * Visitor that computes the CoreMetrics.NCLOC_DATA_KEY & CoreMetrics.COMMENT_LINES_DATA_KEY metrics used by the DevCockpit.
@@ -45,8 +44,9 @@ public class CSharpFileLinesVisitor extends SquidAstVisitor<Grammar> implements
   private final Project project;
   private final FileLinesContextFactory fileLinesContextFactory;
   private FileLinesContext fileLinesContext;
-  private final Set<Integer> linesOfCode = Sets.newHashSet();
-  private final Set<Integer> linesOfComments = Sets.newHashSet();
+  /* Indexed by line number: reused from one file to the next, to avoid boxing and allocating a set entry per line */
+  private final BitSet linesOfCode = new BitSet();
+  private final BitSet linesOfComments = new BitSet();
 
   public CSharpFileLinesVisitor(Project project, FileLinesContextFactory fileLinesContextFactory) {
     this.project = project;
@@ -78,27 +78,21 @@ public class CSharpFileLinesVisitor extends SquidAstVisitor<Grammar> implements
       return;
     }
 
-    linesOfCode.add(token.getLine());
+    linesOfCode.set(token.getLine());
     List<Trivia> trivias = token.getTrivia();
     for (Trivia trivia : trivias) {
       if (trivia.isComment()) {
-        linesOfComments.add(trivia.getToken().getLine());
+        linesOfComments.set(trivia.getToken().getLine());
       }
     }
   }
 
   private int getLineOfCode(int line) {
-    if (linesOfCode.contains(line)) {
-      return 1;
-    }
-    return 0;
+    return linesOfCode.get(line) ? 1 : 0;
   }
 
   private int getLineOfComment(int line) {
-    if (linesOfComments.contains(line)) {
-      return 1;
-    }
-    return 0;
+    return linesOfComments.get(line) ? 1 : 0;
   }
 
 }
@@ -152,6 +152,7 @@ import static com.sonar.csharp.squid.api.CSharpTokenType.INTEGER_DEC_LITERAL;
 import static com.sonar.csharp.squid.api.CSharpTokenType.INTEGER_HEX_LITERAL;
 import static com.sonar.csharp.squid.api.CSharpTokenType.REAL_LITERAL;
 import static com.sonar.csharp.squid.api.CSharpTokenType.STRING_LITERAL;
+import static com.sonar.csharp.squid.api.CSharpTokenType.UNPARSED;
 import static com.sonar.sslr.api.GenericTokenType.EOF;
 import static com.sonar.sslr.api.GenericTokenType.IDENTIFIER;
 
@@ -483,7 +484,14 @@ public enum CSharpGrammar implements GrammarRuleKey {
   ASYNC,
   SET,
   GET,
-  PARTIAL;
+  PARTIAL,
+
+  // Error recovery
+  RECOVERED_MEMBER,
+  RECOVERED_STATEMENT,
+
+  // Unparsed files
+  UNPARSED_CODE;
 
   public static LexerfulGrammarBuilder create() {
     LexerfulGrammarBuilder b = LexerfulGrammarBuilder.create();
@@ -546,14 +554,33 @@ public enum CSharpGrammar implements GrammarRuleKey {
     // Contextual keywords
     contextualKeywords(b);
 
+    // Unparsed files
+    unparsedFiles(b);
+
     b.setRootRule(COMPILATION_UNIT);
 
     return b;
   }
 
+  /**
+   * Same grammar as {@link #create()}, except that the members and the statements which cannot be parsed are skipped up to the next
+   * member or statement boundary, as {@link #RECOVERED_MEMBER} and {@link #RECOVERED_STATEMENT} nodes, instead of failing the whole file.
+   * The AST of a file without syntax error is the same with both grammars.
+   */
+  public static LexerfulGrammarBuilder createWithErrorRecovery() {
+    LexerfulGrammarBuilder b = create();
+    errorRecovery(b);
+    return b;
+  }
+
   private static void basicConcepts(LexerfulGrammarBuilder b) {
-    b.rule(COMPILATION_UNIT)
-        .is(b.zeroOrMore(EXTERN_ALIAS_DIRECTIVE), b.zeroOrMore(USING_DIRECTIVE), b.optional(GLOBAL_ATTRIBUTES), b.zeroOrMore(NAMESPACE_MEMBER_DECLARATION), EOF);
+    b.rule(COMPILATION_UNIT).is(
+        b.firstOf(
+            UNPARSED_CODE,
+            b.sequence(
+                b.zeroOrMore(EXTERN_ALIAS_DIRECTIVE), b.zeroOrMore(USING_DIRECTIVE), b.optional(GLOBAL_ATTRIBUTES),
+                b.zeroOrMore(NAMESPACE_MEMBER_DECLARATION))),
+        EOF);
     b.rule(NAMESPACE_NAME).is(NAMESPACE_OR_TYPE_NAME);
     b.rule(TYPE_NAME).is(NAMESPACE_OR_TYPE_NAME);
     b.rule(NAMESPACE_OR_TYPE_NAME).is(
@@ -1660,6 +1687,46 @@ public enum CSharpGrammar implements GrammarRuleKey {
     b.rule(STACKALLOC_INITIALIZER).is(STACKALLOC, TYPE, LBRACKET, EXPRESSION, RBRACKET);
   }
 
+  /**
+   * The recovery alternatives come last, so that they are only tried once every regular member or statement has failed: the tokens are
+   * skipped up to the next semicolon or curly brace, the blocks being still parsed as such, so that the statements they contain are kept.
+   */
+  private static void errorRecovery(LexerfulGrammarBuilder b) {
+    b.rule(COMPILATION_UNIT).override(
+        b.firstOf(
+            UNPARSED_CODE,
+            b.sequence(
+                b.zeroOrMore(EXTERN_ALIAS_DIRECTIVE), b.zeroOrMore(USING_DIRECTIVE), b.optional(GLOBAL_ATTRIBUTES),
+                b.zeroOrMore(b.firstOf(NAMESPACE_MEMBER_DECLARATION, RECOVERED_MEMBER)))),
+        EOF);
+    b.rule(NAMESPACE_BODY).override(
+        LCURLYBRACE,
+        b.zeroOrMore(EXTERN_ALIAS_DIRECTIVE), b.zeroOrMore(USING_DIRECTIVE),
+        b.zeroOrMore(b.firstOf(NAMESPACE_MEMBER_DECLARATION, RECOVERED_MEMBER)),
+        RCURLYBRACE);
+    b.rule(CLASS_BODY).override(LCURLYBRACE, b.zeroOrMore(b.firstOf(CLASS_MEMBER_DECLARATION, RECOVERED_MEMBER)), RCURLYBRACE);
+    b.rule(STRUCT_BODY).override(LCURLYBRACE, b.zeroOrMore(b.firstOf(STRUCT_MEMBER_DECLARATION, RECOVERED_MEMBER)), RCURLYBRACE);
+    b.rule(INTERFACE_BODY).override(LCURLYBRACE, b.zeroOrMore(b.firstOf(INTERFACE_MEMBER_DECLARATION, RECOVERED_MEMBER)), RCURLYBRACE);
+    b.rule(BLOCK).override(LCURLYBRACE, b.zeroOrMore(b.firstOf(STATEMENT, RECOVERED_STATEMENT)), RCURLYBRACE);
+
+    Object skippedToken = b.anyTokenButNot(b.isOneOfThem(SEMICOLON, LCURLYBRACE, RCURLYBRACE, EOF));
+    b.rule(RECOVERED_MEMBER).is(
+        b.firstOf(
+            b.sequence(b.oneOrMore(skippedToken), b.optional(b.firstOf(SEMICOLON, BLOCK))),
+            SEMICOLON,
+            BLOCK));
+    b.rule(RECOVERED_STATEMENT).is(b.oneOrMore(skippedToken), b.optional(SEMICOLON));
+  }
+
+  /**
+   * The tokens of a file which is not to be parsed are preceded by an {@link com.sonar.csharp.squid.api.CSharpTokenType#UNPARSED} token,
+   * and are put as they are under an {@link #UNPARSED_CODE} node: this costs no backtracking, and still lets the token based metrics and
+   * checks work on the file.
+   */
+  private static void unparsedFiles(LexerfulGrammarBuilder b) {
+    b.rule(UNPARSED_CODE).is(UNPARSED, b.zeroOrMore(b.anyTokenButNot(EOF)));
+  }
+
   private static void contextualKeywords(LexerfulGrammarBuilder b) {
     b.rule(ASYNC).is("async");
     b.rule(SET).is("set");
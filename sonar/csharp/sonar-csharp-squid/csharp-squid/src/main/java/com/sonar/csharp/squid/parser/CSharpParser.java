@@ -20,16 +20,58 @@
 package com.sonar.csharp.squid.parser;
 
 import com.sonar.csharp.squid.CSharpConfiguration;
+import com.sonar.csharp.squid.FileContent;
+import com.sonar.csharp.squid.CSharpConfiguration.Memoization;
 import com.sonar.csharp.squid.lexer.CSharpLexer;
 import com.sonar.sslr.api.Grammar;
 import com.sonar.sslr.impl.Parser;
 import com.sonar.sslr.impl.events.ParsingEventListener;
+import com.sonar.sslr.impl.matcher.RuleDefinition;
+import org.sonar.sslr.grammar.GrammarRuleKey;
+import org.sonar.sslr.grammar.LexerfulGrammarBuilder;
+
+import java.util.EnumMap;
+import java.util.Map;
 
 /**
  * Parser for the C# language.
  */
 public final class CSharpParser {
 
+  /**
+   * Rules memoized with {@link Memoization#BACKTRACKED_RULES}: the ones that are tried again and again at the same position when
+   * alternatives fail, like types (generics versus comparisons), expressions (casts, lambdas, assignments) and statements (declarations
+   * versus expressions). Rules having a skipped rule as alternative, like TYPE or EXPRESSION, are left out: memoizing them on their own
+   * would keep the skipped nodes in the AST.
+   */
+  private static final GrammarRuleKey[] BACKTRACKED_RULES = {
+    CSharpGrammar.NON_ARRAY_TYPE,
+    CSharpGrammar.NULLABLE_TYPE,
+    CSharpGrammar.ARRAY_TYPE,
+    CSharpGrammar.TYPE_PRIMARY,
+    CSharpGrammar.NAMESPACE_OR_TYPE_NAME,
+    CSharpGrammar.TYPE_NAME,
+    CSharpGrammar.TYPE_ARGUMENT_LIST,
+    CSharpGrammar.SIMPLE_NAME,
+    CSharpGrammar.PRIMARY_NO_ARRAY_CREATION_EXPRESSION,
+    CSharpGrammar.UNARY_EXPRESSION,
+    CSharpGrammar.CONDITIONAL_EXPRESSION,
+    CSharpGrammar.LAMBDA_EXPRESSION,
+    CSharpGrammar.ASSIGNMENT,
+    CSharpGrammar.ARGUMENT_LIST,
+    CSharpGrammar.STATEMENT,
+    CSharpGrammar.EMBEDDED_STATEMENT,
+    CSharpGrammar.DECLARATION_STATEMENT,
+    CSharpGrammar.LOCAL_VARIABLE_DECLARATION,
+    CSharpGrammar.EXPRESSION_STATEMENT
+  };
+
+  /**
+   * The grammars do not change once built: they are shared by all the parsers, each of them having its own parsing state.
+   */
+  private static final Map<Memoization, Grammar> GRAMMARS = new EnumMap<Memoization, Grammar>(Memoization.class);
+  private static final Map<Memoization, Grammar> ERROR_RECOVERY_GRAMMARS = new EnumMap<Memoization, Grammar>(Memoization.class);
+
   private CSharpParser() {
   }
 
@@ -38,10 +80,43 @@ public final class CSharpParser {
   }
 
   public static Parser<Grammar> create(CSharpConfiguration conf, ParsingEventListener... parsingEventListeners) {
-    return Parser.builder(CSharpGrammar.create().buildWithMemoizationOfMatchesForAllRules())
-        .withLexer(CSharpLexer.create(conf))
+    return create(conf, null, parsingEventListeners);
+  }
+
+  /**
+   * @param fileContent
+   *          the holder to which the content of each file is handed before it is parsed, or null if it is not needed
+   */
+  public static Parser<Grammar> create(CSharpConfiguration conf, FileContent fileContent, ParsingEventListener... parsingEventListeners) {
+    return Parser.builder(getGrammar(conf.getMemoization(), conf.getErrorRecovery()))
+        .withLexer(CSharpLexer.create(conf, fileContent))
         .setParsingEventListeners(parsingEventListeners)
         .build();
   }
 
+  private static synchronized Grammar getGrammar(Memoization memoization, boolean errorRecovery) {
+    Map<Memoization, Grammar> grammars = errorRecovery ? ERROR_RECOVERY_GRAMMARS : GRAMMARS;
+    Grammar grammar = grammars.get(memoization);
+    if (grammar == null) {
+      grammar = buildGrammar(memoization, errorRecovery ? CSharpGrammar.createWithErrorRecovery() : CSharpGrammar.create());
+      grammars.put(memoization, grammar);
+    }
+    return grammar;
+  }
+
+  private static Grammar buildGrammar(Memoization memoization, LexerfulGrammarBuilder b) {
+    switch (memoization) {
+      case ALL_RULES:
+        return b.buildWithMemoizationOfMatchesForAllRules();
+      case BACKTRACKED_RULES:
+        Grammar grammar = b.build();
+        for (GrammarRuleKey ruleKey : BACKTRACKED_RULES) {
+          ((RuleDefinition) grammar.rule(ruleKey)).getRule().memoizeMatches();
+        }
+        return grammar;
+      default:
+        return b.build();
+    }
+  }
+
 }
@@ -22,13 +22,19 @@ package com.sonar.csharp.squid.scanner;
 import com.google.common.base.Charsets;
 import com.sonar.csharp.squid.CSharpConfiguration;
 import com.sonar.csharp.squid.CharsetAwareVisitor;
+import com.sonar.csharp.squid.FileContent;
+import com.sonar.csharp.squid.FileContentAwareVisitor;
 import com.sonar.csharp.squid.api.CSharpMetric;
 import com.sonar.csharp.squid.metric.CSharpComplexityVisitor;
 import com.sonar.csharp.squid.metric.CSharpPublicApiVisitor;
 import com.sonar.csharp.squid.parser.CSharpGrammar;
 import com.sonar.csharp.squid.parser.CSharpParser;
+import com.sonar.csharp.squid.semantic.SemanticModel;
+import com.sonar.csharp.squid.semantic.SemanticModelAwareVisitor;
+import com.sonar.csharp.squid.semantic.SemanticModelVisitor;
 import com.sonar.csharp.squid.tree.CSharpMemberVisitor;
 import com.sonar.csharp.squid.tree.CSharpTypeVisitor;
+import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.CommentAnalyser;
 import com.sonar.sslr.api.Grammar;
 import com.sonar.sslr.impl.Parser;
@@ -78,12 +84,55 @@ public final class CSharpAstScanner {
   }
 
   public static AstScanner<Grammar> create(CSharpConfiguration conf, SquidAstVisitor<Grammar>... visitors) {
+    return create(conf, null, visitors);
+  }
+
+  /**
+   * @param profile
+   *          the profile in which to record the time spent on each file and in each visitor, or null not to profile the scan
+   */
+  public static AstScanner<Grammar> create(CSharpConfiguration conf, ScanProfile profile, SquidAstVisitor<Grammar>... visitors) {
+    return create(conf, profile, null, visitors);
+  }
+
+  /**
+   * @param profile
+   *          the profile in which to record the time spent on each file and in each visitor, or null not to profile the scan
+   * @param sourceFileListener
+   *          the listener to which each file is handed as soon as it has been scanned, or null to keep all the files in the index
+   */
+  public static AstScanner<Grammar> create(CSharpConfiguration conf, ScanProfile profile, SourceFileListener sourceFileListener,
+      SquidAstVisitor<Grammar>... visitors) {
 
     final SquidAstVisitorContextImpl<Grammar> context = new SquidAstVisitorContextImpl<Grammar>(new SourceProject("C# Project"));
-    final Parser<Grammar> parser = CSharpParser.create(conf);
+    final FileContent fileContent = new FileContent();
+    final FileProfilingVisitor fileProfilingVisitor = profile == null ? null : new FileProfilingVisitor(profile);
+    final Parser<Grammar> parser = fileProfilingVisitor == null
+        ? CSharpParser.create(conf, fileContent)
+        : CSharpParser.create(conf, fileContent, fileProfilingVisitor.getParsingEventListener());
 
     AstScanner.Builder<Grammar> builder = AstScanner.<Grammar> builder(context).setBaseParser(parser);
 
+    /* Streaming: must come first, to get the files once all the other visitors are done with them */
+    if (sourceFileListener != null) {
+      builder.withSquidAstVisitor(new FileStreamingVisitor(sourceFileListener));
+    }
+
+    /* Profiling: must come before the remaining visitors, to surround them */
+    if (fileProfilingVisitor != null) {
+      builder.withSquidAstVisitor(fileProfilingVisitor);
+    }
+
+    /* File content: released once all the other visitors have left the file */
+    builder.withSquidAstVisitor(new SquidAstVisitor<Grammar>() {
+
+      @Override
+      public void leaveFile(AstNode astNode) {
+        fileContent.clear();
+      }
+
+    });
+
     /* Metrics */
     builder.withMetrics(CSharpMetric.values());
 
@@ -113,19 +162,19 @@ public final class CSharpAstScanner {
     builder.setFilesMetric(CSharpMetric.FILES);
 
     /* Tree */
-    builder.withSquidAstVisitor(new CSharpTypeVisitor());
-    builder.withSquidAstVisitor(new CSharpMemberVisitor());
+    withSquidAstVisitor(builder, profile, new CSharpTypeVisitor());
+    withSquidAstVisitor(builder, profile, new CSharpMemberVisitor());
 
     /* Metrics */
-    builder.withSquidAstVisitor(new LinesVisitor<Grammar>(CSharpMetric.LINES));
-    builder.withSquidAstVisitor(new LinesOfCodeVisitor<Grammar>(CSharpMetric.LINES_OF_CODE));
-    builder.withSquidAstVisitor(CommentsVisitor.<Grammar> builder()
+    withSquidAstVisitor(builder, profile, new LinesVisitor<Grammar>(CSharpMetric.LINES));
+    withSquidAstVisitor(builder, profile, new LinesOfCodeVisitor<Grammar>(CSharpMetric.LINES_OF_CODE));
+    withSquidAstVisitor(builder, profile, CommentsVisitor.<Grammar> builder()
         .withCommentMetric(CSharpMetric.COMMENT_LINES)
         .withBlankCommentMetric(CSharpMetric.COMMENT_BLANK_LINES)
         .withNoSonar(true)
         .withIgnoreHeaderComment(conf.getIgnoreHeaderComments())
         .build());
-    builder.withSquidAstVisitor(CounterVisitor.<Grammar> builder()
+    withSquidAstVisitor(builder, profile, CounterVisitor.<Grammar> builder()
         .setMetricDef(CSharpMetric.STATEMENTS)
         .subscribeTo(
             CSharpGrammar.LABELED_STATEMENT,
@@ -141,7 +190,7 @@ public final class CSharpAstScanner {
             CSharpGrammar.USING_STATEMENT,
             CSharpGrammar.YIELD_STATEMENT)
         .build());
-    builder.withSquidAstVisitor(CounterVisitor.<Grammar> builder()
+    withSquidAstVisitor(builder, profile, CounterVisitor.<Grammar> builder()
         .setMetricDef(CSharpMetric.ACCESSORS)
         .subscribeTo(
             CSharpGrammar.GET_ACCESSOR_DECLARATION,
@@ -151,18 +200,43 @@ public final class CSharpAstScanner {
         .build());
 
     /* Visitors */
-    builder.withSquidAstVisitor(new CSharpComplexityVisitor());
-    builder.withSquidAstVisitor(new CSharpPublicApiVisitor());
+    withSquidAstVisitor(builder, profile, new CSharpComplexityVisitor());
+    withSquidAstVisitor(builder, profile, new CSharpPublicApiVisitor());
+
+    /* Semantic model: built before the external visitors visit the file, and only if one of them needs it */
+    SemanticModel semanticModel = null;
+    for (SquidAstVisitor<Grammar> visitor : visitors) {
+      if (visitor instanceof SemanticModelAwareVisitor) {
+        semanticModel = new SemanticModel();
+        withSquidAstVisitor(builder, profile, new SemanticModelVisitor(semanticModel));
+        break;
+      }
+    }
 
     /* External visitors (typically Check ones) */
     for (SquidAstVisitor<Grammar> visitor : visitors) {
       if (visitor instanceof CharsetAwareVisitor) {
         ((CharsetAwareVisitor) visitor).setCharset(conf.getCharset());
       }
-      builder.withSquidAstVisitor(visitor);
+      if (visitor instanceof FileContentAwareVisitor) {
+        ((FileContentAwareVisitor) visitor).setFileContent(fileContent);
+      }
+      if (visitor instanceof SemanticModelAwareVisitor) {
+        ((SemanticModelAwareVisitor) visitor).setSemanticModel(semanticModel);
+      }
+      withSquidAstVisitor(builder, profile, visitor);
     }
 
-    return builder.build();
+    AstScanner<Grammar> scanner = builder.build();
+    if (sourceFileListener != null) {
+      // The project is indexed by the scanner, but the files must not be: the index would keep them in memory
+      context.getProject().setSourceCodeIndexer(null);
+    }
+    return scanner;
+  }
+
+  private static void withSquidAstVisitor(AstScanner.Builder<Grammar> builder, ScanProfile profile, SquidAstVisitor<Grammar> visitor) {
+    builder.withSquidAstVisitor(profile == null ? visitor : ProfilingVisitor.wrap(visitor, profile));
   }
 
 }
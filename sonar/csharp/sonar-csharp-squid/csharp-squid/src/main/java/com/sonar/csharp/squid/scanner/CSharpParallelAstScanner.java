@@ -0,0 +1,233 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.scanner;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.sonar.csharp.squid.CSharpConfiguration;
+import com.sonar.csharp.squid.api.CSharpMetric;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.squid.AstScanner;
+import com.sonar.sslr.squid.SquidAstVisitor;
+import org.sonar.squid.api.AnalysisException;
+import org.sonar.squid.api.SourceCode;
+import org.sonar.squid.api.SourceCodeSearchEngine;
+import org.sonar.squid.api.SourceFile;
+import org.sonar.squid.api.SourceProject;
+import org.sonar.squid.indexer.QueryByType;
+import org.sonar.squid.indexer.SquidIndex;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Scans C# files with several {@link AstScanner} instances working in parallel, each one having its own parser and its own set of
+ * visitors. Once all the workers are done, their results are merged into a single index, in the order of the input files, so that the
+ * outcome is the same as the one of a sequential scan.
+ */
+public final class CSharpParallelAstScanner {
+
+  /**
+   * Creates the external visitors (typically Check ones) of a worker. Each call must return new instances, as the visitors are not
+   * shared between the workers.
+   */
+  public interface VisitorsFactory {
+
+    List<SquidAstVisitor<Grammar>> createVisitors();
+
+  }
+
+  private final CSharpConfiguration conf;
+  private final int threads;
+  private final VisitorsFactory visitorsFactory;
+  private final ScanProfile profile;
+  private final SourceFileListener sourceFileListener;
+  private SquidIndex index;
+
+  public CSharpParallelAstScanner(CSharpConfiguration conf, int threads, VisitorsFactory visitorsFactory) {
+    this(conf, threads, visitorsFactory, null);
+  }
+
+  /**
+   * @param profile
+   *          the profile shared by all the workers, or null not to profile the scan
+   */
+  public CSharpParallelAstScanner(CSharpConfiguration conf, int threads, VisitorsFactory visitorsFactory, ScanProfile profile) {
+    this(conf, threads, visitorsFactory, profile, null);
+  }
+
+  /**
+   * @param profile
+   *          the profile shared by all the workers, or null not to profile the scan
+   * @param sourceFileListener
+   *          the thread-safe listener to which each file is handed as soon as it has been scanned, or null to merge all the files into
+   *          the index
+   */
+  public CSharpParallelAstScanner(CSharpConfiguration conf, int threads, VisitorsFactory visitorsFactory, ScanProfile profile,
+      SourceFileListener sourceFileListener) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("The number of threads must be greater than 0, but was " + threads + ".");
+    }
+    this.conf = conf;
+    this.threads = threads;
+    this.visitorsFactory = visitorsFactory;
+    this.profile = profile;
+    this.sourceFileListener = sourceFileListener;
+  }
+
+  public void scanFiles(Collection<File> files) {
+    List<List<File>> partitions = partition(files);
+    ExecutorService executor = Executors.newFixedThreadPool(partitions.size());
+    try {
+      List<Future<SourceCodeSearchEngine>> results = Lists.newArrayList();
+      for (List<File> partition : partitions) {
+        results.add(executor.submit(new Worker(partition)));
+      }
+
+      Map<String, SourceCode> scannedFiles = Maps.newHashMap();
+      for (Future<SourceCodeSearchEngine> result : results) {
+        for (SourceCode sourceFile : waitFor(result).search(new QueryByType(SourceFile.class))) {
+          scannedFiles.put(sourceFile.getKey(), sourceFile);
+        }
+      }
+      merge(files, scannedFiles);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  public SourceCodeSearchEngine getIndex() {
+    return index;
+  }
+
+  /**
+   * Spreads the files over the workers, the biggest ones first, so that every worker gets roughly the same amount of bytes to scan.
+   */
+  private List<List<File>> partition(Collection<File> files) {
+    int workers = Math.max(1, Math.min(threads, files.size()));
+    List<List<File>> partitions = Lists.newArrayList();
+    long[] loads = new long[workers];
+    for (int i = 0; i < workers; i++) {
+      partitions.add(Lists.<File> newArrayList());
+    }
+
+    List<File> sortedFiles = Lists.newArrayList(files);
+    Collections.sort(sortedFiles, new Comparator<File>() {
+
+      public int compare(File file1, File file2) {
+        long length1 = file1.length();
+        long length2 = file2.length();
+        return length1 > length2 ? -1 : (length1 == length2 ? 0 : 1);
+      }
+
+    });
+
+    for (File file : sortedFiles) {
+      int lightest = 0;
+      for (int i = 1; i < workers; i++) {
+        if (loads[i] < loads[lightest]) {
+          lightest = i;
+        }
+      }
+      partitions.get(lightest).add(file);
+      loads[lightest] += file.length();
+    }
+
+    return partitions;
+  }
+
+  private void merge(Collection<File> files, Map<String, SourceCode> scannedFiles) {
+    index = new SquidIndex();
+    SourceProject project = new SourceProject("C# Project");
+    project.setSourceCodeIndexer(index);
+    index.index(project);
+
+    for (File file : files) {
+      SourceCode sourceFile = scannedFiles.get(file.getAbsolutePath());
+      if (sourceFile != null) {
+        project.addChild(sourceFile);
+        indexChildren(sourceFile);
+        aggregate(project, sourceFile);
+      }
+    }
+  }
+
+  private void indexChildren(SourceCode sourceCode) {
+    if (sourceCode.hasChildren()) {
+      for (SourceCode child : sourceCode.getChildren()) {
+        index.index(child);
+        indexChildren(child);
+      }
+    }
+  }
+
+  /**
+   * The files have already been decorated by their worker: only the project level is left.
+   */
+  private static void aggregate(SourceProject project, SourceCode sourceFile) {
+    for (CSharpMetric metric : CSharpMetric.values()) {
+      if (!metric.isCalculatedMetric() && metric.isThereAggregationFormula()) {
+        project.add(metric, sourceFile);
+      }
+    }
+  }
+
+  private static SourceCodeSearchEngine waitFor(Future<SourceCodeSearchEngine> result) {
+    try {
+      return result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AnalysisException("Interrupted while waiting for the C# files to be scanned", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new AnalysisException("Unable to scan the C# files", e.getCause());
+    }
+  }
+
+  private class Worker implements Callable<SourceCodeSearchEngine> {
+
+    private final List<File> files;
+
+    public Worker(List<File> files) {
+      this.files = files;
+    }
+
+    @SuppressWarnings("unchecked")
+    public SourceCodeSearchEngine call() {
+      List<SquidAstVisitor<Grammar>> visitors = visitorsFactory.createVisitors();
+      AstScanner<Grammar> scanner = CSharpAstScanner.create(conf, profile, sourceFileListener, visitors.toArray(new SquidAstVisitor[visitors.size()]));
+      scanner.scanFiles(files);
+      return scanner.getIndex();
+    }
+
+  }
+
+}
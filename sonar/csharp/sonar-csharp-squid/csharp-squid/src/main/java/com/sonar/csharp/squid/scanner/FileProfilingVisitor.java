@@ -0,0 +1,103 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.scanner;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.impl.events.ParsingEventListener;
+import com.sonar.sslr.squid.SquidAstVisitor;
+
+/**
+ * Records the lex, parse and visit times of each file into a {@link ScanProfile}.
+ * <br/>
+ * Must be the first visitor of the scanner: as the visitors leave a file in the reverse order they visited it, the visit time then
+ * covers all the other visitors.
+ */
+final class FileProfilingVisitor extends SquidAstVisitor<Grammar> {
+
+  private final ScanProfile profile;
+  private final ParsingEventListener parsingEventListener = new ParsingEventListener() {
+
+    @Override
+    public void beginLex() {
+      lexStart = System.nanoTime();
+    }
+
+    @Override
+    public void endLex() {
+      lexTime = System.nanoTime() - lexStart;
+    }
+
+    @Override
+    public void beginParse() {
+      parseStart = System.nanoTime();
+    }
+
+    @Override
+    public void endParse() {
+      parseTime = System.nanoTime() - parseStart;
+    }
+
+  };
+
+  private long lexStart;
+  private long lexTime;
+  private long parseStart;
+  private long parseTime;
+  private long visitStart;
+
+  public FileProfilingVisitor(ScanProfile profile) {
+    this.profile = profile;
+  }
+
+  /**
+   * Must be given to the parser of the scanner.
+   */
+  public ParsingEventListener getParsingEventListener() {
+    return parsingEventListener;
+  }
+
+  @Override
+  public void visitFile(AstNode astNode) {
+    visitStart = System.nanoTime();
+  }
+
+  @Override
+  public void leaveFile(AstNode astNode) {
+    long visitTime = System.nanoTime() - visitStart;
+    profile.addFile(new ScanProfile.FileProfile(getContext().getFile().getPath(), lexTime, parseTime, visitTime, countNodes(astNode)));
+    lexTime = 0;
+    parseTime = 0;
+  }
+
+  private static int countNodes(AstNode astNode) {
+    if (astNode == null) {
+      return 0;
+    }
+    int count = 1;
+    if (astNode.hasChildren()) {
+      for (AstNode child : astNode.getChildren()) {
+        count += countNodes(child);
+      }
+    }
+    return count;
+  }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.scanner;
+
+import com.sonar.csharp.squid.api.CSharpMetric;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.squid.SquidAstVisitor;
+import org.sonar.squid.api.SourceCode;
+import org.sonar.squid.api.SourceFile;
+
+/**
+ * Hands each file over to a {@link SourceFileListener}, then removes it from the project so that it can be garbage collected.
+ * <br/>
+ * Must be the first visitor of the scanner, so that it leaves the file after all the other visitors.
+ */
+final class FileStreamingVisitor extends SquidAstVisitor<Grammar> {
+
+  private final SourceFileListener listener;
+
+  public FileStreamingVisitor(SourceFileListener listener) {
+    this.listener = listener;
+  }
+
+  @Override
+  public void leaveFile(AstNode astNode) {
+    SourceFile sourceFile = (SourceFile) getContext().peekSourceCode();
+    decorate(sourceFile);
+    listener.onSourceFile(sourceFile);
+    sourceFile.getParent().getChildren().remove(sourceFile);
+  }
+
+  /**
+   * Same aggregation as the one the scanner does at the end of the scan, restricted to one file.
+   */
+  private static void decorate(SourceCode sourceCode) {
+    if (!sourceCode.hasChildren()) {
+      return;
+    }
+    for (SourceCode child : sourceCode.getChildren()) {
+      decorate(child);
+    }
+    for (CSharpMetric metric : CSharpMetric.values()) {
+      if (!metric.isCalculatedMetric() && metric.isThereAggregationFormula()
+        && (metric.aggregateIfThereIsAlreadyAValue() || sourceCode.getDouble(metric) == 0)) {
+        for (SourceCode child : sourceCode.getChildren()) {
+          sourceCode.add(metric, child);
+        }
+      }
+    }
+  }
+
+}
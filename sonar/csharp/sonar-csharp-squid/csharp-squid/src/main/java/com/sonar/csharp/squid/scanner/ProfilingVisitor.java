@@ -0,0 +1,139 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.scanner;
+
+import com.sonar.sslr.api.AstAndTokenVisitor;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.AstNodeType;
+import com.sonar.sslr.api.AuditListener;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.api.RecognitionException;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.squid.SquidAstVisitor;
+
+import java.util.List;
+
+/**
+ * Forwards all the events to another visitor, and adds the time it spent on each file to a {@link ScanProfile}.
+ * <br/>
+ * The node types of the wrapped visitor are only known once it has been initialized, so it must be wrapped before the scanner
+ * initializes its visitors.
+ */
+class ProfilingVisitor extends SquidAstVisitor<Grammar> implements AuditListener {
+
+  private final SquidAstVisitor<Grammar> delegate;
+  private final String name;
+  private final ScanProfile profile;
+  private long time;
+
+  ProfilingVisitor(SquidAstVisitor<Grammar> delegate, ScanProfile profile) {
+    this.delegate = delegate;
+    this.profile = profile;
+    String simpleName = delegate.getClass().getSimpleName();
+    this.name = simpleName.length() == 0 ? delegate.getClass().getName() : simpleName;
+  }
+
+  /**
+   * Token visitors are wrapped into a subclass, so that the others are not notified of every token.
+   */
+  static ProfilingVisitor wrap(SquidAstVisitor<Grammar> visitor, ScanProfile profile) {
+    return visitor instanceof AstAndTokenVisitor ? new TokenProfilingVisitor(visitor, profile) : new ProfilingVisitor(visitor, profile);
+  }
+
+  SquidAstVisitor<Grammar> getDelegate() {
+    return delegate;
+  }
+
+  @Override
+  public void init() {
+    delegate.setContext(getContext());
+    delegate.init();
+    List<AstNodeType> astNodeTypes = delegate.getAstNodeTypesToVisit();
+    subscribeTo(astNodeTypes.toArray(new AstNodeType[astNodeTypes.size()]));
+  }
+
+  @Override
+  public void visitFile(AstNode astNode) {
+    long start = System.nanoTime();
+    delegate.visitFile(astNode);
+    addTime(start);
+  }
+
+  @Override
+  public void visitNode(AstNode astNode) {
+    long start = System.nanoTime();
+    delegate.visitNode(astNode);
+    addTime(start);
+  }
+
+  @Override
+  public void leaveNode(AstNode astNode) {
+    long start = System.nanoTime();
+    delegate.leaveNode(astNode);
+    addTime(start);
+  }
+
+  /**
+   * The time is handed over to the profile once per file, not to contend with the other workers of a parallel scan on every node.
+   */
+  @Override
+  public void leaveFile(AstNode astNode) {
+    long start = System.nanoTime();
+    delegate.leaveFile(astNode);
+    profile.addVisitorTime(name, time + System.nanoTime() - start);
+    time = 0;
+  }
+
+  @Override
+  public void destroy() {
+    delegate.destroy();
+  }
+
+  public void processRecognitionException(RecognitionException e) {
+    if (delegate instanceof AuditListener) {
+      ((AuditListener) delegate).processRecognitionException(e);
+    }
+  }
+
+  public void processException(Exception e) {
+    if (delegate instanceof AuditListener) {
+      ((AuditListener) delegate).processException(e);
+    }
+  }
+
+  final void addTime(long start) {
+    time += System.nanoTime() - start;
+  }
+
+  private static final class TokenProfilingVisitor extends ProfilingVisitor implements AstAndTokenVisitor {
+
+    public TokenProfilingVisitor(SquidAstVisitor<Grammar> delegate, ScanProfile profile) {
+      super(delegate, profile);
+    }
+
+    public void visitToken(Token token) {
+      long start = System.nanoTime();
+      ((AstAndTokenVisitor) getDelegate()).visitToken(token);
+      addTime(start);
+    }
+
+  }
+
+}
@@ -0,0 +1,224 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.scanner;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the time spent lexing, parsing and visiting each file, and the time spent in each visitor, during one or several scans.
+ * The visitors are identified by their class: the time of the copies of a check used by the workers of a parallel scan is summed up.
+ * <br/>
+ * This class is thread-safe, so the same profile can be given to all the workers of a {@link CSharpParallelAstScanner}.
+ */
+public final class ScanProfile {
+
+  public static final class FileProfile {
+
+    private final String path;
+    private final long lexTime;
+    private final long parseTime;
+    private final long visitTime;
+    private final int astNodes;
+
+    FileProfile(String path, long lexTime, long parseTime, long visitTime, int astNodes) {
+      this.path = path;
+      this.lexTime = lexTime;
+      this.parseTime = parseTime;
+      this.visitTime = visitTime;
+      this.astNodes = astNodes;
+    }
+
+    public String getPath() {
+      return path;
+    }
+
+    /**
+     * @return the time spent lexing the file, in milliseconds
+     */
+    public long getLexTime() {
+      return toMillis(lexTime);
+    }
+
+    /**
+     * @return the time spent parsing the file, lexing excluded, in milliseconds
+     */
+    public long getParseTime() {
+      return toMillis(parseTime);
+    }
+
+    /**
+     * @return the time spent by all the visitors on the file, in milliseconds
+     */
+    public long getVisitTime() {
+      return toMillis(visitTime);
+    }
+
+    public long getTotalTime() {
+      return toMillis(lexTime + parseTime + visitTime);
+    }
+
+    /**
+     * @return the number of nodes of the AST of the file, or 0 if it could not be parsed
+     */
+    public int getAstNodes() {
+      return astNodes;
+    }
+
+    private long getTotalNanos() {
+      return lexTime + parseTime + visitTime;
+    }
+
+  }
+
+  public static final class VisitorProfile {
+
+    private final String name;
+    private final long time;
+
+    VisitorProfile(String name, long time) {
+      this.name = name;
+      this.time = time;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return the time spent in the visitor on all the files, in milliseconds
+     */
+    public long getTime() {
+      return toMillis(time);
+    }
+
+  }
+
+  private final List<FileProfile> files = Lists.newArrayList();
+  private final Map<String, Long> visitorTimes = Maps.newHashMap();
+
+  synchronized void addFile(FileProfile file) {
+    files.add(file);
+  }
+
+  /**
+   * Adds some time to the one spent in a visitor, or in a part of a visitor which is worth being profiled on its own.
+   *
+   * @param nanos
+   *          the time, in nanoseconds
+   */
+  public synchronized void addVisitorTime(String visitor, long nanos) {
+    Long time = visitorTimes.get(visitor);
+    visitorTimes.put(visitor, time == null ? nanos : time + nanos);
+  }
+
+  public synchronized List<FileProfile> getFiles() {
+    return Lists.newArrayList(files);
+  }
+
+  public synchronized List<VisitorProfile> getVisitors() {
+    List<VisitorProfile> result = Lists.newArrayList();
+    for (Map.Entry<String, Long> entry : visitorTimes.entrySet()) {
+      result.add(new VisitorProfile(entry.getKey(), entry.getValue()));
+    }
+    return result;
+  }
+
+  public List<FileProfile> getSlowestFiles(int count) {
+    List<FileProfile> result = getFiles();
+    Collections.sort(result, new Comparator<FileProfile>() {
+
+      public int compare(FileProfile file1, FileProfile file2) {
+        return compareDescending(file1.getTotalNanos(), file2.getTotalNanos());
+      }
+
+    });
+    return result.subList(0, Math.min(count, result.size()));
+  }
+
+  public List<VisitorProfile> getSlowestVisitors(int count) {
+    List<VisitorProfile> result = getVisitors();
+    Collections.sort(result, new Comparator<VisitorProfile>() {
+
+      public int compare(VisitorProfile visitor1, VisitorProfile visitor2) {
+        return compareDescending(visitor1.time, visitor2.time);
+      }
+
+    });
+    return result.subList(0, Math.min(count, result.size()));
+  }
+
+  /**
+   * Writes the profile as an XML document, the slowest files and visitors first.
+   */
+  public void writeTo(Writer writer) throws IOException {
+    try {
+      XMLStreamWriter xml = XMLOutputFactory.newInstance().createXMLStreamWriter(writer);
+      xml.writeStartDocument("UTF-8", "1.0");
+      xml.writeStartElement("profile");
+
+      xml.writeStartElement("files");
+      for (FileProfile file : getSlowestFiles(Integer.MAX_VALUE)) {
+        xml.writeEmptyElement("file");
+        xml.writeAttribute("path", file.getPath());
+        xml.writeAttribute("lexTime", Long.toString(file.getLexTime()));
+        xml.writeAttribute("parseTime", Long.toString(file.getParseTime()));
+        xml.writeAttribute("visitTime", Long.toString(file.getVisitTime()));
+        xml.writeAttribute("astNodes", Integer.toString(file.getAstNodes()));
+      }
+      xml.writeEndElement();
+
+      xml.writeStartElement("visitors");
+      for (VisitorProfile visitor : getSlowestVisitors(Integer.MAX_VALUE)) {
+        xml.writeEmptyElement("visitor");
+        xml.writeAttribute("name", visitor.getName());
+        xml.writeAttribute("time", Long.toString(visitor.getTime()));
+      }
+      xml.writeEndElement();
+
+      xml.writeEndElement();
+      xml.writeEndDocument();
+      xml.flush();
+    } catch (XMLStreamException e) {
+      throw new IOException("Unable to write the scan profile", e);
+    }
+  }
+
+  private static int compareDescending(long value1, long value2) {
+    return value1 > value2 ? -1 : (value1 == value2 ? 0 : 1);
+  }
+
+  private static long toMillis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+
+}
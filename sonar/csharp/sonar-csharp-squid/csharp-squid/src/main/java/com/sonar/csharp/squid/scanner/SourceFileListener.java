@@ -0,0 +1,38 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.scanner;
+
+import org.sonar.squid.api.SourceFile;
+
+/**
+ * Receives each file as soon as all the visitors are done with it, instead of waiting for the end of the scan to search the index.
+ * <br/>
+ * The files given to a listener are neither indexed nor kept in the project once the listener returns: it must consume everything it
+ * needs from them right away. With a {@link CSharpParallelAstScanner}, the listener is called by several threads at once.
+ */
+public interface SourceFileListener {
+
+  /**
+   * @param sourceFile
+   *          the file, whose measures have already been aggregated from its classes and members
+   */
+  void onSourceFile(SourceFile sourceFile);
+
+}
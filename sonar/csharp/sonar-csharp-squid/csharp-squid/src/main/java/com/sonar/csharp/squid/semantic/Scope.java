@@ -0,0 +1,108 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.semantic;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.sonar.sslr.api.AstNode;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Part of a file in which names can be declared: the file itself, a type, a member, an accessor, an anonymous function, a block or a
+ * statement declaring a variable (for, foreach, using and catch).
+ */
+public final class Scope {
+
+  private final AstNode tree;
+  private final Scope outer;
+  private final Map<String, Symbol> symbols = Maps.newLinkedHashMap();
+  private final Set<String> referencedTypes = Sets.newLinkedHashSet();
+
+  Scope(AstNode tree, Scope outer) {
+    this.tree = tree;
+    this.outer = outer;
+  }
+
+  /**
+   * The first declaration of a name wins: a file which redeclares it does not compile anyway.
+   */
+  void declare(String name, Symbol.Kind kind, AstNode declaration, boolean passedByReference) {
+    if (!symbols.containsKey(name)) {
+      symbols.put(name, new Symbol(name, kind, declaration, passedByReference, this));
+    }
+  }
+
+  void addReferencedType(String type) {
+    referencedTypes.add(type);
+  }
+
+  public AstNode getTree() {
+    return tree;
+  }
+
+  /**
+   * @return the enclosing scope, or null for the scope of the file
+   */
+  public Scope getOuter() {
+    return outer;
+  }
+
+  /**
+   * @return the symbols declared in this very scope, in their order of declaration
+   */
+  public Collection<Symbol> getSymbols() {
+    return Collections.unmodifiableCollection(symbols.values());
+  }
+
+  /**
+   * @return the symbol declared with the given name in this very scope, or null
+   */
+  public Symbol getSymbol(String name) {
+    return symbols.get(name);
+  }
+
+  /**
+   * @return the symbol which the given name refers to from this scope, searching the enclosing scopes, or null if it is not declared in
+   *         the file (a member inherited or declared in another file, a type, a namespace...)
+   */
+  public Symbol lookup(String name) {
+    for (Scope scope = this; scope != null; scope = scope.outer) {
+      Symbol symbol = scope.symbols.get(name);
+      if (symbol != null) {
+        return symbol;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Types referenced by a type declaration, as written in the source code (for instance "List<int>" and "int"), including the ones
+   * referenced by its members but not the ones of its nested types. Only the scopes of the classes, structs and interfaces, and the one
+   * of the file, have referenced types.
+   */
+  public Set<String> getReferencedTypes() {
+    return Collections.unmodifiableSet(referencedTypes);
+  }
+
+}
@@ -0,0 +1,199 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.semantic;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.sonar.csharp.squid.api.CSharpKeyword;
+import com.sonar.csharp.squid.parser.CSharpGrammar;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.AstNodeType;
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.Token;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Scopes of the file being scanned, with the fields, parameters and local variables they declare and the types referenced by each type
+ * declaration. It is built once per file, before the checks visit it, so that they can resolve names with map lookups instead of
+ * rebuilding them from the tokens. Each scanner has its own instance, whose content changes with every file.
+ * <br/>
+ * Names are only resolved within the file: there is no type information, members inherited or declared in other files are not known, and
+ * the referenced types are the names written in the source code.
+ */
+public final class SemanticModel {
+
+  private static final Set<AstNodeType> TYPE_DECLARATIONS = ImmutableSet.<AstNodeType> of(
+      CSharpGrammar.CLASS_DECLARATION,
+      CSharpGrammar.STRUCT_DECLARATION,
+      CSharpGrammar.INTERFACE_DECLARATION);
+
+  private static final Set<AstNodeType> SCOPES = ImmutableSet.<AstNodeType> builder()
+      .addAll(TYPE_DECLARATIONS)
+      .add(
+          CSharpGrammar.METHOD_DECLARATION,
+          CSharpGrammar.CONSTRUCTOR_DECLARATION,
+          CSharpGrammar.INDEXER_DECLARATION,
+          CSharpGrammar.OPERATOR_DECLARATION,
+          CSharpGrammar.DELEGATE_DECLARATION,
+          CSharpGrammar.INTERFACE_METHOD_DECLARATION,
+          CSharpGrammar.INTERFACE_INDEXER_DECLARATION,
+          CSharpGrammar.SET_ACCESSOR_DECLARATION,
+          CSharpGrammar.ADD_ACCESSOR_DECLARATION,
+          CSharpGrammar.REMOVE_ACCESSOR_DECLARATION,
+          CSharpGrammar.LAMBDA_EXPRESSION,
+          CSharpGrammar.ANONYMOUS_METHOD_EXPRESSION,
+          CSharpGrammar.BLOCK,
+          CSharpGrammar.FOR_STATEMENT,
+          CSharpGrammar.FOREACH_STATEMENT,
+          CSharpGrammar.USING_STATEMENT,
+          CSharpGrammar.SPECIFIC_CATCH_CLAUSE)
+      .build();
+
+  private final Map<AstNode, Scope> scopes = Maps.newIdentityHashMap();
+
+  /**
+   * Replaces the content of the model by the one of the given tree, in a single walk.
+   *
+   * @param tree
+   *          the root of the tree of the file, or null if it could not be parsed
+   */
+  public void build(AstNode tree) {
+    clear();
+    if (tree != null) {
+      Scope fileScope = newScope(tree, null);
+      for (AstNode child : tree.getChildren()) {
+        visit(child, fileScope, fileScope);
+      }
+    }
+  }
+
+  /**
+   * Called once a file has been scanned, so that its tree can be garbage collected.
+   */
+  public void clear() {
+    scopes.clear();
+  }
+
+  /**
+   * @return the scope opened by the given node, or null if it does not open any
+   */
+  public Scope getScope(AstNode tree) {
+    return scopes.get(tree);
+  }
+
+  /**
+   * @return the innermost scope containing the given node, which is the one it opens if it does, or null if the node is not part of the
+   *         file being scanned
+   */
+  public Scope getEnclosingScope(AstNode node) {
+    for (AstNode tree = node; tree != null; tree = tree.getParent()) {
+      Scope scope = scopes.get(tree);
+      if (scope != null) {
+        return scope;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the symbol which the given identifier refers to, or null if it is not declared in the file
+   */
+  public Symbol resolve(AstNode identifier) {
+    Scope scope = getEnclosingScope(identifier);
+    return scope == null ? null : scope.lookup(identifier.getTokenOriginalValue());
+  }
+
+  private Scope newScope(AstNode tree, Scope outer) {
+    Scope scope = new Scope(tree, outer);
+    scopes.put(tree, scope);
+    return scope;
+  }
+
+  private void visit(AstNode node, Scope outerScope, Scope outerTypeScope) {
+    Scope scope = outerScope;
+    Scope typeScope = outerTypeScope;
+    AstNodeType type = node.getType();
+
+    if (SCOPES.contains(type)) {
+      scope = newScope(node, outerScope);
+      if (TYPE_DECLARATIONS.contains(type)) {
+        typeScope = scope;
+      }
+    }
+
+    if (type == CSharpGrammar.TYPE) {
+      typeScope.addReferencedType(joinTokens(node));
+    } else {
+      declare(node, scope);
+    }
+
+    for (AstNode child : node.getChildren()) {
+      visit(child, scope, typeScope);
+    }
+  }
+
+  private static void declare(AstNode node, Scope scope) {
+    if (node.is(CSharpGrammar.FIXED_PARAMETER)) {
+      declare(scope, Symbol.Kind.PARAMETER, node.getFirstChild(GenericTokenType.IDENTIFIER),
+          isOutOrRef(node.getFirstChild(CSharpGrammar.PARAMETER_MODIFIER)));
+    } else if (node.is(CSharpGrammar.EXPLICIT_ANONYMOUS_FUNCTION_PARAMETER)) {
+      declare(scope, Symbol.Kind.PARAMETER, node.getFirstChild(GenericTokenType.IDENTIFIER),
+          isOutOrRef(node.getFirstChild(CSharpGrammar.ANONYMOUS_FUNCTION_PARAMETER_MODIFIER)));
+    } else if (node.is(CSharpGrammar.PARAMETER_ARRAY, CSharpGrammar.IMPLICIT_ANONYMOUS_FUNCTION_PARAMETER)) {
+      declare(scope, Symbol.Kind.PARAMETER, node.getFirstChild(GenericTokenType.IDENTIFIER), false);
+    } else if (node.is(CSharpGrammar.UNARY_OPERATOR_DECLARATOR, CSharpGrammar.BINARY_OPERATOR_DECLARATOR,
+        CSharpGrammar.CONVERSION_OPERATOR_DECLARATOR)) {
+      for (AstNode identifier : node.getChildren(GenericTokenType.IDENTIFIER)) {
+        declare(scope, Symbol.Kind.PARAMETER, identifier, false);
+      }
+    } else if (node.is(CSharpGrammar.SET_ACCESSOR_DECLARATION, CSharpGrammar.ADD_ACCESSOR_DECLARATION,
+        CSharpGrammar.REMOVE_ACCESSOR_DECLARATION)) {
+      scope.declare("value", Symbol.Kind.PARAMETER, node, false);
+    } else if (node.is(CSharpGrammar.VARIABLE_DECLARATOR)) {
+      declare(scope, Symbol.Kind.FIELD, node.getFirstChild(GenericTokenType.IDENTIFIER), false);
+    } else if (node.is(CSharpGrammar.CONSTANT_DECLARATOR)) {
+      Symbol.Kind kind = node.getParent().is(CSharpGrammar.LOCAL_CONSTANT_DECLARATION) ? Symbol.Kind.LOCAL_VARIABLE : Symbol.Kind.FIELD;
+      declare(scope, kind, node.getFirstChild(GenericTokenType.IDENTIFIER), false);
+    } else if (node.is(CSharpGrammar.LOCAL_VARIABLE_DECLARATOR, CSharpGrammar.FOREACH_STATEMENT, CSharpGrammar.SPECIFIC_CATCH_CLAUSE)) {
+      declare(scope, Symbol.Kind.LOCAL_VARIABLE, node.getFirstChild(GenericTokenType.IDENTIFIER), false);
+    }
+  }
+
+  private static void declare(Scope scope, Symbol.Kind kind, AstNode identifier, boolean passedByReference) {
+    if (identifier != null) {
+      scope.declare(identifier.getTokenOriginalValue(), kind, identifier, passedByReference);
+    }
+  }
+
+  private static boolean isOutOrRef(AstNode modifier) {
+    return modifier != null && modifier.hasDirectChildren(CSharpKeyword.OUT, CSharpKeyword.REF);
+  }
+
+  private static String joinTokens(AstNode node) {
+    StringBuilder sb = new StringBuilder();
+    for (Token token : node.getTokens()) {
+      sb.append(token.getOriginalValue());
+    }
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.semantic;
+
+import com.sonar.sslr.api.AstNode;
+
+/**
+ * Name declared in a {@link Scope}: a field, a parameter or a local variable.
+ */
+public final class Symbol {
+
+  public enum Kind {
+    FIELD,
+    PARAMETER,
+    LOCAL_VARIABLE
+  }
+
+  private final String name;
+  private final Kind kind;
+  private final AstNode declaration;
+  private final boolean passedByReference;
+  private final Scope scope;
+
+  Symbol(String name, Kind kind, AstNode declaration, boolean passedByReference, Scope scope) {
+    this.name = name;
+    this.kind = kind;
+    this.declaration = declaration;
+    this.passedByReference = passedByReference;
+    this.scope = scope;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  public boolean is(Kind kind) {
+    return this.kind == kind;
+  }
+
+  /**
+   * Node declaring the symbol: the accessor itself for the implicit "value" parameter of the set, add and remove accessors.
+   */
+  public AstNode getDeclaration() {
+    return declaration;
+  }
+
+  /**
+   * True for the "ref" and "out" parameters.
+   */
+  public boolean isPassedByReference() {
+    return passedByReference;
+  }
+
+  public Scope getScope() {
+    return scope;
+  }
+
+  @Override
+  public String toString() {
+    return kind + " " + name;
+  }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import com.sonar.csharp.squid.scanner.CSharpAstScanner;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.squid.AstScanner;
+import com.sonar.sslr.squid.SquidAstVisitor;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class FileContentTest {
+
+  @Test
+  public void should_split_lines_like_guava() throws IOException {
+    assertLines("");
+    assertLines("a");
+    assertLines("a\n");
+    assertLines("a\r\nb\rc\n\nd");
+    assertLines("\n\r\n\r");
+    assertLines("a\r");
+  }
+
+  @Test
+  public void should_give_the_content_of_the_file_being_visited() throws IOException {
+    List<File> files = Lists.newArrayList(FileUtils.listFiles(FileUtils.toFile(getClass().getResource("/")), new String[] {"cs"}, true));
+    LinesRecorder recorder = new LinesRecorder();
+    AstScanner<Grammar> scanner = CSharpAstScanner.create(new CSharpConfiguration(Charsets.UTF_8), recorder);
+    scanner.scanFiles(files);
+
+    assertThat(recorder.lines.size(), is(files.size()));
+    for (File file : files) {
+      assertThat(file.getPath(), recorder.lines.get(file), is(Files.readLines(file, Charsets.UTF_8)));
+    }
+  }
+
+  @Test
+  public void should_be_empty_once_cleared() {
+    FileContent fileContent = new FileContent();
+    fileContent.setChars("a\nb".toCharArray());
+    assertThat(fileContent.getChars().toString(), is("a\nb"));
+    fileContent.clear();
+    assertThat(fileContent.getChars().length(), is(0));
+    assertThat(fileContent.getLines(), is(Collections.<String> emptyList()));
+  }
+
+  private static void assertLines(String content) throws IOException {
+    FileContent fileContent = new FileContent();
+    fileContent.setChars(content.toCharArray());
+    File file = File.createTempFile("content", ".cs");
+    try {
+      Files.write(content, file, Charsets.UTF_8);
+      assertThat(Arrays.toString(content.toCharArray()), fileContent.getLines(), is(Files.readLines(file, Charsets.UTF_8)));
+    } finally {
+      file.delete();
+    }
+  }
+
+  private static class LinesRecorder extends SquidAstVisitor<Grammar> implements FileContentAwareVisitor {
+
+    private final Map<File, List<String>> lines = Maps.newHashMap();
+    private FileContent fileContent;
+
+    public void setFileContent(FileContent fileContent) {
+      this.fileContent = fileContent;
+    }
+
+    @Override
+    public void visitFile(AstNode astNode) {
+      lines.put(getContext().getFile(), fileContent.getLines());
+    }
+
+  }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.api.source;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.sonar.csharp.squid.CSharpConfiguration;
+import com.sonar.csharp.squid.api.CSharpMetric;
+import com.sonar.csharp.squid.scanner.CSharpAstScanner;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.squid.AstScanner;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.sonar.squid.api.SourceCode;
+import org.sonar.squid.api.SourceFile;
+import org.sonar.squid.indexer.QueryByParent;
+import org.sonar.squid.indexer.QueryByType;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class SourceMembersTest {
+
+  private final CSharpConfiguration conf = new CSharpConfiguration(Charset.forName("UTF-8"));
+  private final List<File> files = Lists.newArrayList(FileUtils.listFiles(FileUtils.toFile(getClass().getResource("/metric")),
+      new String[] {"cs"}, false));
+
+  @Test
+  public void should_find_the_same_members_as_the_index() {
+    for (File file : files) {
+      AstScanner<Grammar> scanner = CSharpAstScanner.create(conf);
+      scanner.scanFile(file);
+      SourceCode sourceFile = scanner.getIndex().search(file.getAbsolutePath());
+      assertThat(file.getName(), Sets.<SourceCode> newHashSet(SourceMembers.of(sourceFile)),
+          is(Sets.newHashSet(scanner.getIndex().search(new QueryByParent(sourceFile), new QueryByType(SourceMember.class)))));
+    }
+  }
+
+  /**
+   * The index only keeps one of the members declared with the same key in different files, the tree keeps all of them.
+   */
+  @Test
+  public void should_find_members_whose_key_is_also_used_in_another_file() {
+    AstScanner<Grammar> scanner = CSharpAstScanner.create(conf);
+    scanner.scanFiles(files);
+
+    int members = 0;
+    for (SourceCode sourceFile : scanner.getIndex().search(new QueryByType(SourceFile.class))) {
+      List<SourceMember> fileMembers = SourceMembers.of(sourceFile);
+      assertThat(sourceFile.getKey(), fileMembers.size(), is(sourceFile.getInt(CSharpMetric.METHODS)));
+      members += fileMembers.size();
+    }
+    assertThat(members, greaterThan(0));
+  }
+
+}
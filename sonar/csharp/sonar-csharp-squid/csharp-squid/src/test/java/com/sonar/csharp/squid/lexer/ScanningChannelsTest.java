@@ -0,0 +1,161 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.lexer;
+
+import com.google.common.base.Charsets;
+import com.sonar.csharp.squid.CSharpConfiguration;
+import com.sonar.csharp.squid.api.CSharpKeyword;
+import com.sonar.csharp.squid.api.CSharpPunctuator;
+import com.sonar.csharp.squid.api.CSharpTokenType;
+import com.sonar.csharp.squid.lexer.preprocessors.StandardPreprocessorLinePreprocessor;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
+import com.sonar.sslr.impl.Lexer;
+import com.sonar.sslr.impl.channel.BlackHoleChannel;
+import com.sonar.sslr.impl.channel.BomCharacterChannel;
+import com.sonar.sslr.impl.channel.IdentifierAndKeywordChannel;
+import com.sonar.sslr.impl.channel.PunctuatorChannel;
+import com.sonar.sslr.impl.channel.UnknownCharacterChannel;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+
+import static com.sonar.sslr.impl.channel.RegexpChannelBuilder.ANY_CHAR;
+import static com.sonar.sslr.impl.channel.RegexpChannelBuilder.DIGIT;
+import static com.sonar.sslr.impl.channel.RegexpChannelBuilder.HEXA_DIGIT;
+import static com.sonar.sslr.impl.channel.RegexpChannelBuilder.anyButNot;
+import static com.sonar.sslr.impl.channel.RegexpChannelBuilder.commentRegexp;
+import static com.sonar.sslr.impl.channel.RegexpChannelBuilder.g;
+import static com.sonar.sslr.impl.channel.RegexpChannelBuilder.o2n;
+import static com.sonar.sslr.impl.channel.RegexpChannelBuilder.one2n;
+import static com.sonar.sslr.impl.channel.RegexpChannelBuilder.opt;
+import static com.sonar.sslr.impl.channel.RegexpChannelBuilder.or;
+import static com.sonar.sslr.impl.channel.RegexpChannelBuilder.regexp;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Checks that the scanning channels of {@link CSharpLexer} give exactly the same tokens as the regular expression channels they replace.
+ */
+public class ScanningChannelsTest {
+
+  private static final String INT_SUFFIX = "(((U|u)(L|l)?)|((L|l)(u|U)?))";
+  private static final String REAL_SUFFIX = "(F|f|D|d|M|m)";
+  private static final String EXP = g("[Ee]" + opt("[+-]") + one2n(DIGIT));
+
+  private static final String LETTER_CHAR = g("\\p{Lu}|\\p{Ll}|\\p{Lt}|\\p{Lm}|\\p{Lo}|\\p{Nl}");
+  private static final String COMBINING_CHAR = g("\\p{Mn}|\\p{Mc}");
+  private static final String DECIMAL_DIGIT_CHAR = g("\\p{Nd}");
+  private static final String CONNECTING_CHAR = g("\\p{Pc}");
+  private static final String FORMATTING_CHAR = g("\\p{Cf}");
+
+  private final Lexer lexer = CSharpLexer.create(new CSharpConfiguration(Charsets.UTF_8));
+  private final Lexer regexpLexer = createRegexpLexer();
+
+  @Test
+  public void sameTokensOnTestResources() {
+    Collection<File> files = FileUtils.listFiles(new File("src/test/resources"), new String[] {"cs"}, true);
+    assertThat(files.size(), greaterThan(0));
+    for (File file : files) {
+      assertThat(file.getPath(), print(lexer.lex(file)), is(print(regexpLexer.lex(file))));
+    }
+  }
+
+  @Test
+  public void sameTokensOnComments() {
+    assertSameTokens("// comment\r\n/* multi\n line */ /**/ /*/ a */ / * /* unclosed");
+  }
+
+  @Test
+  public void sameTokensOnStringLiterals() {
+    assertSameTokens("\"\" \"a\\\"b\" \"\\\\\" \"a\\nb\" \"unclosed\n\"a\\\"\n\"a\\\n\"tab\t\"");
+    assertSameTokens("@\"\" @\"a\"\"b\" @\"multi\nline\" @\"a\"\"");
+    assertSameTokens("@\"unclosed");
+  }
+
+  @Test
+  public void sameTokensOnCharacterLiterals() {
+    assertSameTokens("'a' '\\'' '\\\\' '\\u0041' '' 'ab'");
+    assertSameTokens("'\\'\n'");
+    assertSameTokens("'\\");
+  }
+
+  @Test
+  public void sameTokensOnNumericLiterals() {
+    assertSameTokens("0 12 .5 1.5 1.5e10 1.5E-3f 1e+5 2e 3f 4D 5m 6.ToString() 7..8 0x1F 0XaBu 0x 0xFFUL 10L 10lu 10u 10Ul 1.2.3");
+  }
+
+  @Test
+  public void sameTokensOnIdentifiers() {
+    assertSameTokens("a _a a1 @a @class class @ @1 éléphant _\u203F x\u0300 \u00AD a\u00AD \u2160 \uD835\uDC00b a\uD835\uDFCE");
+  }
+
+  private void assertSameTokens(String source) {
+    assertThat(print(lexer.lex(source)), is(print(regexpLexer.lex(source))));
+  }
+
+  private static String print(List<Token> tokens) {
+    StringBuilder sb = new StringBuilder();
+    for (Token token : tokens) {
+      for (Trivia trivia : token.getTrivia()) {
+        sb.append("  ").append(print(trivia.getToken())).append('\n');
+      }
+      sb.append(print(token)).append('\n');
+    }
+    return sb.toString();
+  }
+
+  private static String print(Token token) {
+    return token.getType() + " " + token.getLine() + ":" + token.getColumn() + " [" + token.getOriginalValue() + "]";
+  }
+
+  /**
+   * The regular expression channels used before the scanning ones.
+   */
+  private static Lexer createRegexpLexer() {
+    return Lexer.builder()
+        .withCharset(Charsets.UTF_8)
+        .withFailIfNoChannelToConsumeOneCharacter(true)
+        .withChannel(commentRegexp("//", o2n("[^\\n\\r]")))
+        .withChannel(commentRegexp("/\\*", ANY_CHAR + "*?", "\\*/"))
+        .withChannel(regexp(CSharpTokenType.STRING_LITERAL, "\"", o2n(or("\\\\.", anyButNot("\"", "\\n", "\\r"))), "\""))
+        .withChannel(regexp(CSharpTokenType.STRING_LITERAL, "@\"", o2n(or("\"\"", anyButNot("\""))), "\""))
+        .withChannel(regexp(CSharpTokenType.CHARACTER_LITERAL, "'", one2n(or("\\\\.", anyButNot("'", "\\n", "\\r"))), "'"))
+        .withChannel(regexp(CSharpTokenType.REAL_LITERAL, o2n(DIGIT), "\\.", one2n(DIGIT), opt(EXP), opt(REAL_SUFFIX)))
+        .withChannel(regexp(CSharpTokenType.REAL_LITERAL, one2n(DIGIT), EXP, opt(REAL_SUFFIX)))
+        .withChannel(regexp(CSharpTokenType.REAL_LITERAL, one2n(DIGIT), REAL_SUFFIX))
+        .withChannel(regexp(CSharpTokenType.INTEGER_HEX_LITERAL, "0[xX]", one2n(HEXA_DIGIT), opt(INT_SUFFIX)))
+        .withChannel(regexp(CSharpTokenType.INTEGER_DEC_LITERAL, one2n(DIGIT), opt(INT_SUFFIX)))
+        .withChannel(new IdentifierAndKeywordChannel(g(opt("@"), or(LETTER_CHAR, "_"),
+            o2n(or(LETTER_CHAR, DECIMAL_DIGIT_CHAR, CONNECTING_CHAR, COMBINING_CHAR, FORMATTING_CHAR))), true, CSharpKeyword.values()))
+        .withChannel(new PunctuatorChannel(CSharpPunctuator.values()))
+        .withChannel(regexp(CSharpTokenType.PREPROCESSOR, "#[^\\r\\n]*"))
+        .withChannel(new BlackHoleChannel("[\\s]"))
+        .withChannel(new BomCharacterChannel())
+        .withChannel(new UnknownCharacterChannel())
+        .withPreprocessor(new StandardPreprocessorLinePreprocessor())
+        .build();
+  }
+
+}
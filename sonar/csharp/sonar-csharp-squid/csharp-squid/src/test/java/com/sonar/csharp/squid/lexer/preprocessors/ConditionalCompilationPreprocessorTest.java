@@ -0,0 +1,130 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.lexer.preprocessors;
+
+import com.google.common.collect.Lists;
+import com.sonar.csharp.squid.CSharpConfiguration;
+import com.sonar.csharp.squid.lexer.CSharpLexer;
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
+import com.sonar.sslr.impl.Lexer;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ConditionalCompilationPreprocessorTest {
+
+  @Test
+  public void inactive_regions_should_be_skipped() {
+    String code = "#if DEBUG\n a\n#elif TRACE\n b\n#else\n c\n#endif\n d";
+
+    assertThat(identifiers(code, "DEBUG")).containsExactly("a", "d");
+    assertThat(identifiers(code, "TRACE")).containsExactly("b", "d");
+    assertThat(identifiers(code, "DEBUG", "TRACE")).containsExactly("a", "d");
+    assertThat(identifiers(code)).containsExactly("c", "d");
+  }
+
+  @Test
+  public void nested_sections() {
+    String code = "#if A\n a\n#if B\n b\n#else\n notB\n#endif\n#else\n notA\n#if B\n b2\n#endif\n#endif";
+
+    assertThat(identifiers(code, "A", "B")).containsExactly("a", "b");
+    assertThat(identifiers(code, "A")).containsExactly("a", "notB");
+    assertThat(identifiers(code, "B")).containsExactly("notA", "b2");
+  }
+
+  @Test
+  public void define_and_undef() {
+    assertThat(identifiers("#define A\n#if A\n a\n#endif")).containsExactly("a");
+    assertThat(identifiers("#undef A\n#if A\n a\n#endif", "A")).isEmpty();
+    assertThat(identifiers("#if B\n#define A\n#endif\n#if A\n a\n#endif")).isEmpty();
+  }
+
+  @Test
+  public void expressions() {
+    assertThat(identifiers("#if A && !B\n a\n#endif", "A")).containsExactly("a");
+    assertThat(identifiers("#if A && !B\n a\n#endif", "A", "B")).isEmpty();
+    assertThat(identifiers("#if (A || B) && C\n a\n#endif", "B", "C")).containsExactly("a");
+    assertThat(identifiers("#if A == false\n a\n#endif")).containsExactly("a");
+    assertThat(identifiers("#if A != B\n a\n#endif", "A")).containsExactly("a");
+    assertThat(identifiers("#if true // comment\n a\n#endif")).containsExactly("a");
+    assertThat(identifiers("#  if  A\n a\n#endif", "A")).containsExactly("a");
+  }
+
+  @Test
+  public void invalid_expressions_should_be_true() {
+    assertThat(identifiers("#if (A\n a\n#else\n b\n#endif")).containsExactly("a");
+    assertThat(identifiers("#if A B\n a\n#endif")).containsExactly("a");
+  }
+
+  @Test
+  public void unterminated_section_should_skip_up_to_the_end_of_file() {
+    List<Token> tokens = lexer().lex("#if A\n a");
+    assertThat(tokens).hasSize(1);
+    assertThat(tokens.get(0).getType()).isEqualTo(GenericTokenType.EOF);
+  }
+
+  @Test
+  public void directives_and_inactive_regions_should_be_skipped_text() {
+    List<Token> tokens = lexer().lex("#region R\n#if A\n a b\n#endif\n c");
+    assertThat(tokens).hasSize(2);
+
+    List<String> skippedText = Lists.newArrayList();
+    for (Trivia trivia : tokens.get(0).getTrivia()) {
+      assertThat(trivia.isSkippedText()).isTrue();
+      StringBuilder text = new StringBuilder();
+      for (Token token : trivia.getTokens()) {
+        text.append(token.getValue());
+      }
+      skippedText.add(text.toString());
+    }
+    assertThat(skippedText).containsExactly("#region R", "#if A", "ab", "#endif");
+  }
+
+  @Test
+  public void state_should_be_reset_for_each_file() {
+    Lexer lexer = lexer();
+    lexer.lex("#define A\n#if B");
+    List<Token> tokens = lexer.lex("#if A\n#else\n a\n#endif");
+    assertThat(tokens).hasSize(2);
+    assertThat(tokens.get(0).getValue()).isEqualTo("a");
+  }
+
+  private static List<String> identifiers(String code, String... symbols) {
+    List<String> identifiers = Lists.newArrayList();
+    for (Token token : lexer(symbols).lex(code)) {
+      if (token.getType() == GenericTokenType.IDENTIFIER) {
+        identifiers.add(token.getValue());
+      }
+    }
+    return identifiers;
+  }
+
+  private static Lexer lexer(String... symbols) {
+    CSharpConfiguration conf = new CSharpConfiguration();
+    conf.setPreprocessorSymbols(Arrays.asList(symbols));
+    return CSharpLexer.create(conf);
+  }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.lexer.preprocessors;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.sonar.csharp.squid.CSharpConfiguration;
+import com.sonar.csharp.squid.api.CSharpMetric;
+import com.sonar.csharp.squid.api.CSharpTokenType;
+import com.sonar.csharp.squid.lexer.CSharpLexer;
+import com.sonar.csharp.squid.scanner.CSharpAstScanner;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.TokenType;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.sonar.squid.api.SourceFile;
+
+import java.io.File;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class UnparsedFilePreprocessorTest {
+
+  private final File file = FileUtils.toFile(getClass().getResource("/metric/Money.cs"));
+
+  @Test
+  public void unparsed_files_should_start_with_a_marker_on_the_line_of_their_first_token() {
+    CSharpConfiguration conf = new CSharpConfiguration(Charsets.UTF_8);
+    conf.setUnparsedFiles(ImmutableList.of(file));
+    List<Token> tokens = CSharpLexer.create(conf).lex(file);
+
+    assertThat(tokens.get(0).getType()).isEqualTo(CSharpTokenType.UNPARSED);
+    assertThat(tokens.get(0).getLine()).isEqualTo(tokens.get(1).getLine());
+    assertThat(tokens.get(0).getTrivia()).isEmpty();
+    assertThat(tokens).hasSize(CSharpLexer.create(new CSharpConfiguration(Charsets.UTF_8)).lex(file).size() + 1);
+  }
+
+  @Test
+  public void other_files_should_be_left_unchanged() {
+    CSharpConfiguration conf = new CSharpConfiguration(Charsets.UTF_8);
+    conf.setUnparsedFiles(ImmutableList.of(new File("Other.cs")));
+
+    assertThat(CSharpLexer.create(conf).lex(file).get(0).getType()).isNotEqualTo(CSharpTokenType.UNPARSED);
+    assertThat(CSharpLexer.create(conf).lex("class A {}").get(0).getType()).isNotEqualTo(CSharpTokenType.UNPARSED);
+  }
+
+  @Test
+  public void files_above_a_threshold_should_not_be_parsed() {
+    assertThat(firstTokenType(file, conf(file.length(), 0, 0))).isNotEqualTo(CSharpTokenType.UNPARSED);
+    assertThat(firstTokenType(file, conf(file.length() - 1, 0, 0))).isEqualTo(CSharpTokenType.UNPARSED);
+
+    assertThat(firstTokenType(file, conf(0, 1000, 0))).isNotEqualTo(CSharpTokenType.UNPARSED);
+    assertThat(firstTokenType(file, conf(0, 10, 0))).isEqualTo(CSharpTokenType.UNPARSED);
+
+    assertThat(CSharpLexer.create(conf(0, 0, 4)).lex("class A {}").get(0).getType()).isNotEqualTo(CSharpTokenType.UNPARSED);
+    assertThat(CSharpLexer.create(conf(0, 0, 3)).lex("class A {}").get(0).getType()).isEqualTo(CSharpTokenType.UNPARSED);
+    assertThat(CSharpLexer.create(conf(0, 0, 3)).lex("").get(0).getType()).isNotEqualTo(CSharpTokenType.UNPARSED);
+  }
+
+  @Test
+  public void unparsed_files_should_only_get_the_line_metrics() {
+    SourceFile parsedFile = CSharpAstScanner.scanSingleFile(file, new CSharpConfiguration(Charsets.UTF_8));
+    CSharpConfiguration conf = new CSharpConfiguration(Charsets.UTF_8);
+    conf.setUnparsedFiles(ImmutableList.of(file));
+    SourceFile unparsedFile = CSharpAstScanner.scanSingleFile(file, conf);
+
+    assertThat(unparsedFile.getInt(CSharpMetric.LINES)).isEqualTo(parsedFile.getInt(CSharpMetric.LINES));
+    assertThat(unparsedFile.getInt(CSharpMetric.LINES_OF_CODE)).isEqualTo(parsedFile.getInt(CSharpMetric.LINES_OF_CODE));
+    assertThat(unparsedFile.getInt(CSharpMetric.COMMENT_LINES)).isEqualTo(parsedFile.getInt(CSharpMetric.COMMENT_LINES));
+    assertThat(parsedFile.getInt(CSharpMetric.CLASSES)).isGreaterThan(0);
+    assertThat(unparsedFile.getInt(CSharpMetric.CLASSES)).isEqualTo(0);
+    assertThat(unparsedFile.getInt(CSharpMetric.METHODS)).isEqualTo(0);
+    assertThat(unparsedFile.getInt(CSharpMetric.STATEMENTS)).isEqualTo(0);
+    assertThat(unparsedFile.getInt(CSharpMetric.COMPLEXITY)).isEqualTo(0);
+  }
+
+  private static CSharpConfiguration conf(long maxFileSize, int maxFileLines, int maxFileTokens) {
+    CSharpConfiguration conf = new CSharpConfiguration(Charsets.UTF_8);
+    conf.setMaxParsedFileSize(maxFileSize);
+    conf.setMaxParsedFileLines(maxFileLines);
+    conf.setMaxParsedFileTokens(maxFileTokens);
+    return conf;
+  }
+
+  private static TokenType firstTokenType(File file, CSharpConfiguration conf) {
+    return CSharpLexer.create(conf).lex(file).get(0).getType();
+  }
+
+}
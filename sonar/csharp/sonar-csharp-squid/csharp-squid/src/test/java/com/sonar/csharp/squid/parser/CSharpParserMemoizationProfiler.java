@@ -0,0 +1,148 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.parser;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import com.sonar.csharp.squid.CSharpConfiguration;
+import com.sonar.csharp.squid.CSharpConfiguration.Memoization;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.impl.Parser;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures, for each {@link Memoization} mode, the time needed to parse C# files, and the heap retained once a file is parsed: its syntax
+ * tree plus the parsing state, which holds the memoized matches until the parser is given the next file. Not a test: run it on an
+ * otherwise idle JVM, preferably with -XX:+UseSerialGC, with as arguments:
+ * <ul>
+ * <li>the file or the directory to parse (defaults to "src/test/resources");</li>
+ * <li>the number of times each file is repeated into a single source (defaults to 1), to simulate the big generated files.</li>
+ * </ul>
+ */
+public final class CSharpParserMemoizationProfiler {
+
+  private static final int WARM_UP_ITERATIONS = 3;
+  private static final int ITERATIONS = 5;
+
+  private CSharpParserMemoizationProfiler() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    File input = new File(args.length > 0 ? args[0] : "src/test/resources");
+    int copies = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+    Collection<File> files = input.isFile() ? Collections.singleton(input) : FileUtils.listFiles(input, new String[] {"cs"}, true);
+    List<String> sources = Lists.newArrayList();
+    long lines = 0;
+    for (File file : files) {
+      StringBuilder source = new StringBuilder();
+      String content = Files.toString(file, Charsets.UTF_8);
+      for (int i = 0; i < copies; i++) {
+        source.append(content).append('\n');
+      }
+      sources.add(source.toString());
+      lines += Files.readLines(file, Charsets.UTF_8).size() * (long) copies;
+    }
+    System.out.println("Parsing " + files.size() + " files from " + input.getAbsolutePath() + ", repeated " + copies + " times: " + lines
+      + " lines");
+
+    for (Memoization memoization : Memoization.values()) {
+      CSharpConfiguration conf = new CSharpConfiguration(Charsets.UTF_8);
+      conf.setMemoization(memoization);
+
+      for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+        parseAll(conf, sources);
+      }
+
+      long totalTime = 0;
+      for (int i = 0; i < ITERATIONS; i++) {
+        long start = System.nanoTime();
+        int failures = parseAll(conf, sources);
+        totalTime += System.nanoTime() - start;
+        if (failures > 0 && i == 0) {
+          System.out.println("  " + failures + " files could not be parsed with " + memoization);
+        }
+      }
+
+      System.out.println(String.format("%-18s %8d ms/iteration %8d KB retained by the biggest parse", memoization,
+          totalTime / ITERATIONS / 1000000, getRetainedHeap(conf, sources) / 1024));
+    }
+  }
+
+  private static int parseAll(CSharpConfiguration conf, List<String> sources) {
+    Parser<Grammar> parser = CSharpParser.create(conf);
+    int failures = 0;
+    for (String source : sources) {
+      try {
+        parser.parse(source);
+      } catch (RuntimeException e) {
+        failures++;
+      }
+    }
+    return failures;
+  }
+
+  /**
+   * The smallest of several measures, as the first ones can be skewed by garbage that the collector frees only later.
+   */
+  private static long getRetainedHeap(CSharpConfiguration conf, List<String> sources) {
+    long min = Long.MAX_VALUE;
+    for (int i = 0; i < ITERATIONS; i++) {
+      min = Math.min(min, getMaxRetainedHeap(conf, sources));
+    }
+    return min;
+  }
+
+  private static long getMaxRetainedHeap(CSharpConfiguration conf, List<String> sources) {
+    long max = 0;
+    for (String source : sources) {
+      long before = getUsedHeapAfterGc();
+      Parser<Grammar> parser = CSharpParser.create(conf);
+      AstNode tree;
+      try {
+        tree = parser.parse(source);
+      } catch (RuntimeException e) {
+        continue;
+      }
+      long retained = getUsedHeapAfterGc() - before;
+      // keep the parser and the tree reachable until the heap is measured
+      if (tree != null && parser.getParsingState() != null) {
+        max = Math.max(max, retained);
+      }
+    }
+    return max;
+  }
+
+  private static long getUsedHeapAfterGc() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+}
@@ -20,12 +20,23 @@
 package com.sonar.csharp.squid.parser;
 
 import com.sonar.csharp.squid.CSharpConfiguration;
+import com.sonar.csharp.squid.CSharpConfiguration.Memoization;
+import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.api.RecognitionException;
 import com.sonar.sslr.impl.Parser;
+import com.sonar.sslr.impl.ast.AstXmlPrinter;
 import org.apache.commons.io.FileUtils;
 import org.junit.Test;
 
+import java.io.File;
 import java.nio.charset.Charset;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
 
 /**
  * Test class for the C# parser
@@ -54,4 +65,71 @@ public class CSharpParserTest {
     parser.parse(FileUtils.toFile(getClass().getResource("/parser/cSharpSyntaxAllInOneFile.cs")));
   }
 
+  @Test
+  public void testGrammarIsShared() {
+    Parser<Grammar> otherParser = CSharpParser.create(new CSharpConfiguration(Charset.forName("UTF-8")));
+    assertThat(otherParser.getGrammar(), sameInstance(parser.getGrammar()));
+    otherParser.parse(FileUtils.toFile(getClass().getResource("/parser/simpleFile.cs")));
+    parser.parse(FileUtils.toFile(getClass().getResource("/parser/simpleFile.cs")));
+  }
+
+  @Test
+  public void testBacktrackedRulesMemoizationDoesNotChangeTheAst() {
+    Parser<Grammar> backtrackedRulesParser = createParser(Memoization.BACKTRACKED_RULES);
+    Parser<Grammar> noMemoizationParser = createParser(Memoization.NONE);
+    assertThat(backtrackedRulesParser.getGrammar(), not(sameInstance(parser.getGrammar())));
+    assertThat(noMemoizationParser.getGrammar(), not(sameInstance(parser.getGrammar())));
+
+    for (String fileName : new String[] {"simpleFile.cs", "NUnitFramework.cs", "LinqBridge-1.2.cs", "cSharpSyntaxAllInOneFile.cs"}) {
+      File file = FileUtils.toFile(getClass().getResource("/parser/" + fileName));
+      assertThat(AstXmlPrinter.print(backtrackedRulesParser.parse(file)), is(AstXmlPrinter.print(noMemoizationParser.parse(file))));
+    }
+  }
+
+  @Test
+  public void testErrorRecoveryDoesNotChangeTheAst() {
+    Parser<Grammar> errorRecoveryParser = createErrorRecoveryParser();
+    assertThat(errorRecoveryParser.getGrammar(), not(sameInstance(parser.getGrammar())));
+
+    for (String fileName : new String[] {"simpleFile.cs", "NUnitFramework.cs", "LinqBridge-1.2.cs", "cSharpSyntaxAllInOneFile.cs"}) {
+      File file = FileUtils.toFile(getClass().getResource("/parser/" + fileName));
+      assertThat(AstXmlPrinter.print(errorRecoveryParser.parse(file)), is(AstXmlPrinter.print(parser.parse(file))));
+    }
+  }
+
+  @Test(expected = RecognitionException.class)
+  public void testParsingErrorsWithoutErrorRecovery() {
+    parser.parse(FileUtils.toFile(getClass().getResource("/parser/parsingErrors.cs")));
+  }
+
+  @Test
+  public void testErrorRecovery() {
+    AstNode compilationUnit = createErrorRecoveryParser().parse(FileUtils.toFile(getClass().getResource("/parser/parsingErrors.cs")));
+
+    List<AstNode> recoveredMembers = compilationUnit.getDescendants(CSharpGrammar.RECOVERED_MEMBER);
+    assertThat(recoveredMembers.size(), is(1));
+    assertThat(recoveredMembers.get(0).getTokenLine(), is(7));
+
+    List<AstNode> recoveredStatements = compilationUnit.getDescendants(CSharpGrammar.RECOVERED_STATEMENT);
+    assertThat(recoveredStatements.size(), is(2));
+    assertThat(recoveredStatements.get(0).getTokenLine(), is(11));
+    assertThat(recoveredStatements.get(1).getTokenLine(), is(14));
+
+    assertThat(compilationUnit.getDescendants(CSharpGrammar.METHOD_DECLARATION).size(), is(2));
+    assertThat(compilationUnit.getDescendants(CSharpGrammar.IF_STATEMENT).size(), is(1));
+    assertThat(compilationUnit.getDescendants(CSharpGrammar.EXPRESSION_STATEMENT).size(), is(1));
+  }
+
+  private static Parser<Grammar> createErrorRecoveryParser() {
+    CSharpConfiguration conf = new CSharpConfiguration(Charset.forName("UTF-8"));
+    conf.setErrorRecovery(true);
+    return CSharpParser.create(conf);
+  }
+
+  private static Parser<Grammar> createParser(Memoization memoization) {
+    CSharpConfiguration conf = new CSharpConfiguration(Charset.forName("UTF-8"));
+    conf.setMemoization(memoization);
+    return CSharpParser.create(conf);
+  }
+
 }
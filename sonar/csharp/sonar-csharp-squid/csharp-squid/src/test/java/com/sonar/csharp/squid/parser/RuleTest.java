@@ -21,11 +21,17 @@ package com.sonar.csharp.squid.parser;
 
 import com.google.common.base.Charsets;
 import com.sonar.csharp.squid.CSharpConfiguration;
+import com.sonar.csharp.squid.lexer.CSharpLexer;
 import com.sonar.sslr.api.Grammar;
 import com.sonar.sslr.impl.Parser;
 
 public abstract class RuleTest {
 
-  protected Parser<Grammar> p = CSharpParser.create(new CSharpConfiguration(Charsets.UTF_8));
+  /**
+   * Rule tests override some rules: they can not use the grammar shared by the parsers returned by {@link CSharpParser#create}.
+   */
+  protected Parser<Grammar> p = Parser.builder(CSharpGrammar.create().buildWithMemoizationOfMatchesForAllRules())
+      .withLexer(CSharpLexer.create(new CSharpConfiguration(Charsets.UTF_8)))
+      .build();
 
 }
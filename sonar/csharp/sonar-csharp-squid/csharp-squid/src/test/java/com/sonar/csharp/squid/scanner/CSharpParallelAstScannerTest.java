@@ -0,0 +1,108 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.scanner;
+
+import com.google.common.collect.Lists;
+import com.sonar.csharp.squid.CSharpConfiguration;
+import com.sonar.csharp.squid.api.CSharpMetric;
+import com.sonar.csharp.squid.api.source.SourceMember;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.squid.AstScanner;
+import com.sonar.sslr.squid.SquidAstVisitor;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.sonar.squid.api.SourceCode;
+import org.sonar.squid.api.SourceCodeSearchEngine;
+import org.sonar.squid.api.SourceFile;
+import org.sonar.squid.api.SourceProject;
+import org.sonar.squid.indexer.QueryByParent;
+import org.sonar.squid.indexer.QueryByType;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CSharpParallelAstScannerTest {
+
+  private final CSharpConfiguration conf = new CSharpConfiguration(Charset.forName("UTF-8"));
+
+  @Test
+  public void should_give_same_results_as_sequential_scan() {
+    List<File> files = Lists.newArrayList(FileUtils.listFiles(FileUtils.toFile(getClass().getResource("/metric")), new String[] {"cs"}, false));
+    files.addAll(FileUtils.listFiles(FileUtils.toFile(getClass().getResource("/parser")), new String[] {"cs"}, false));
+
+    AstScanner<Grammar> sequentialScanner = CSharpAstScanner.create(conf);
+    sequentialScanner.scanFiles(files);
+
+    CSharpParallelAstScanner parallelScanner = new CSharpParallelAstScanner(conf, 3, new CSharpParallelAstScanner.VisitorsFactory() {
+
+      public List<SquidAstVisitor<Grammar>> createVisitors() {
+        return Lists.newArrayList();
+      }
+
+    });
+    parallelScanner.scanFiles(files);
+
+    assertSameMeasures(project(parallelScanner.getIndex()), project(sequentialScanner.getIndex()));
+
+    Collection<SourceCode> sequentialFiles = sequentialScanner.getIndex().search(new QueryByType(SourceFile.class));
+    assertThat(parallelScanner.getIndex().search(new QueryByType(SourceFile.class)).size(), is(files.size()));
+    for (SourceCode sequentialFile : sequentialFiles) {
+      SourceCode parallelFile = parallelScanner.getIndex().search(sequentialFile.getKey());
+      assertSameMeasures(parallelFile, sequentialFile);
+      assertThat(parallelScanner.getIndex().search(new QueryByParent(parallelFile), new QueryByType(SourceMember.class)).size(),
+          is(sequentialScanner.getIndex().search(new QueryByParent(sequentialFile), new QueryByType(SourceMember.class)).size()));
+    }
+  }
+
+  @Test
+  public void should_accept_more_threads_than_files() {
+    CSharpParallelAstScanner scanner = new CSharpParallelAstScanner(conf, 4, new CSharpParallelAstScanner.VisitorsFactory() {
+
+      public List<SquidAstVisitor<Grammar>> createVisitors() {
+        return Lists.newArrayList();
+      }
+
+    });
+    scanner.scanFiles(Lists.newArrayList(FileUtils.toFile(getClass().getResource("/metric/Money.cs"))));
+
+    assertThat(project(scanner.getIndex()).getInt(CSharpMetric.FILES), is(1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void should_fail_without_threads() {
+    new CSharpParallelAstScanner(conf, 0, null);
+  }
+
+  private static SourceProject project(SourceCodeSearchEngine index) {
+    return (SourceProject) index.search(new QueryByType(SourceProject.class)).iterator().next();
+  }
+
+  private static void assertSameMeasures(SourceCode actual, SourceCode expected) {
+    for (CSharpMetric metric : CSharpMetric.values()) {
+      assertThat(metric.getName() + " of " + expected.getKey(), actual.getDouble(metric), is(expected.getDouble(metric)));
+    }
+  }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.scanner;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.sonar.csharp.squid.CSharpConfiguration;
+import com.sonar.csharp.squid.api.CSharpMetric;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.squid.AstScanner;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.sonar.squid.api.SourceCode;
+import org.sonar.squid.api.SourceFile;
+import org.sonar.squid.indexer.QueryByType;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class FileStreamingVisitorTest {
+
+  private final CSharpConfiguration conf = new CSharpConfiguration(Charset.forName("UTF-8"));
+
+  @Test
+  public void should_stream_decorated_files_without_indexing_them() {
+    List<File> files = Lists.newArrayList(FileUtils.listFiles(FileUtils.toFile(getClass().getResource("/metric")), new String[] {"cs"}, false));
+
+    final Map<String, SourceFile> streamedFiles = Maps.newHashMap();
+    AstScanner<Grammar> streamingScanner = CSharpAstScanner.create(conf, null, new SourceFileListener() {
+
+      public void onSourceFile(SourceFile sourceFile) {
+        streamedFiles.put(sourceFile.getKey(), sourceFile);
+      }
+
+    });
+    streamingScanner.scanFiles(files);
+
+    AstScanner<Grammar> scanner = CSharpAstScanner.create(conf);
+    scanner.scanFiles(files);
+
+    assertThat(streamingScanner.getIndex().search(new QueryByType(SourceFile.class)).isEmpty(), is(true));
+    assertThat(streamedFiles.size(), is(files.size()));
+    for (SourceCode sourceFile : scanner.getIndex().search(new QueryByType(SourceFile.class))) {
+      SourceFile streamedFile = streamedFiles.get(sourceFile.getKey());
+      assertThat(streamedFile.getParent() == null || !streamedFile.getParent().hasChild(streamedFile), is(true));
+      for (CSharpMetric metric : CSharpMetric.values()) {
+        assertThat(sourceFile.getKey() + " " + metric.name(), streamedFile.getDouble(metric), is(sourceFile.getDouble(metric)));
+      }
+    }
+  }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.scanner;
+
+import com.google.common.collect.ImmutableList;
+import com.sonar.csharp.squid.CSharpConfiguration;
+import com.sonar.csharp.squid.api.CSharpMetric;
+import com.sonar.csharp.squid.parser.CSharpGrammar;
+import com.sonar.sslr.api.AstAndTokenVisitor;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.squid.AstScanner;
+import com.sonar.sslr.squid.SquidAstVisitor;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.sonar.squid.api.SourceProject;
+import org.sonar.squid.indexer.QueryByType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ScanProfileTest {
+
+  private final CSharpConfiguration conf = new CSharpConfiguration(Charset.forName("UTF-8"));
+  private final List<File> files = ImmutableList.of(
+      FileUtils.toFile(getClass().getResource("/metric/Money.cs")),
+      FileUtils.toFile(getClass().getResource("/metric/simpleFile.cs")));
+
+  @Test
+  public void should_profile_files_and_visitors() throws IOException {
+    ScanProfile profile = new ScanProfile();
+    TokenCounter profiledCounter = new TokenCounter();
+    AstScanner<Grammar> profiledScanner = CSharpAstScanner.create(conf, profile, profiledCounter);
+    profiledScanner.scanFiles(files);
+
+    TokenCounter counter = new TokenCounter();
+    AstScanner<Grammar> scanner = CSharpAstScanner.create(conf, counter);
+    scanner.scanFiles(files);
+
+    assertThat(profiledCounter.tokens, is(counter.tokens));
+    assertThat(profiledCounter.classes, is(counter.classes));
+    SourceProject profiledProject = (SourceProject) profiledScanner.getIndex().search(new QueryByType(SourceProject.class)).iterator().next();
+    SourceProject project = (SourceProject) scanner.getIndex().search(new QueryByType(SourceProject.class)).iterator().next();
+    for (CSharpMetric metric : CSharpMetric.values()) {
+      assertThat(metric.name(), profiledProject.getDouble(metric), is(project.getDouble(metric)));
+    }
+
+    assertThat(profile.getFiles().size(), is(2));
+    for (ScanProfile.FileProfile file : profile.getFiles()) {
+      assertThat(file.getAstNodes(), greaterThan(0));
+    }
+    assertThat(profile.getSlowestFiles(1).size(), is(1));
+
+    List<String> visitors = names(profile.getVisitors());
+    assertThat(visitors, hasItem("TokenCounter"));
+    assertThat(visitors, hasItem("CSharpComplexityVisitor"));
+
+    StringWriter writer = new StringWriter();
+    profile.writeTo(writer);
+    assertThat(writer.toString(), containsString("Money.cs"));
+    assertThat(writer.toString(), containsString("<visitor name=\"TokenCounter\""));
+  }
+
+  @Test
+  public void should_aggregate_visitors_of_parallel_workers() {
+    ScanProfile profile = new ScanProfile();
+    CSharpParallelAstScanner scanner = new CSharpParallelAstScanner(conf, 2, new CSharpParallelAstScanner.VisitorsFactory() {
+
+      public List<SquidAstVisitor<Grammar>> createVisitors() {
+        return ImmutableList.<SquidAstVisitor<Grammar>> of(new TokenCounter());
+      }
+
+    }, profile);
+    scanner.scanFiles(files);
+
+    assertThat(profile.getFiles().size(), is(2));
+    assertThat(profile.getSlowestVisitors(Integer.MAX_VALUE).size(), is(profile.getVisitors().size()));
+    assertThat(names(profile.getVisitors()), hasItem("TokenCounter"));
+  }
+
+  private static List<String> names(List<ScanProfile.VisitorProfile> visitors) {
+    ImmutableList.Builder<String> result = ImmutableList.builder();
+    for (ScanProfile.VisitorProfile visitor : visitors) {
+      result.add(visitor.getName());
+    }
+    return result.build();
+  }
+
+  private static class TokenCounter extends SquidAstVisitor<Grammar> implements AstAndTokenVisitor {
+
+    private int tokens;
+    private int classes;
+
+    @Override
+    public void init() {
+      subscribeTo(CSharpGrammar.CLASS_DECLARATION);
+    }
+
+    @Override
+    public void visitNode(AstNode astNode) {
+      classes++;
+    }
+
+    public void visitToken(Token token) {
+      tokens++;
+    }
+
+  }
+
+}
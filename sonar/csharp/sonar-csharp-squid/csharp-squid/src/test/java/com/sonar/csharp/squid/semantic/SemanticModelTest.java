@@ -0,0 +1,144 @@
+/*
+ * Sonar C# Plugin :: C# Squid :: Squid
+ * Copyright (C) 2010 Jose Chillan, Alexandre Victoor and SonarSource
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package com.sonar.csharp.squid.semantic;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.sonar.csharp.squid.CSharpConfiguration;
+import com.sonar.csharp.squid.parser.CSharpGrammar;
+import com.sonar.csharp.squid.parser.CSharpParser;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.GenericTokenType;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class SemanticModelTest {
+
+  private final SemanticModel semanticModel = new SemanticModel();
+
+  @Test
+  public void should_declare_fields_parameters_and_local_variables() {
+    AstNode tree = parse(
+        "class Foo {",
+        "  int field1, field2;",
+        "  const int CONSTANT = 0;",
+        "  void Bar(int a, ref int b, out int c, params int[] d) {",
+        "    int local = 0;",
+        "    const int localConstant = 0;",
+        "    foreach (int item in d) { }",
+        "    try { } catch (Exception e) { }",
+        "  }",
+        "  int Baz { set { } }",
+        "}");
+    semanticModel.build(tree);
+
+    Scope classScope = semanticModel.getScope(tree.getFirstDescendant(CSharpGrammar.CLASS_DECLARATION));
+    assertThat(names(classScope), is("[FIELD field1, FIELD field2, FIELD CONSTANT]"));
+
+    AstNode method = tree.getFirstDescendant(CSharpGrammar.METHOD_DECLARATION);
+    Scope methodScope = semanticModel.getScope(method);
+    assertThat(methodScope.getOuter(), sameInstance(classScope));
+    assertThat(names(methodScope), is("[PARAMETER a, PARAMETER b, PARAMETER c, PARAMETER d]"));
+    assertThat(methodScope.getSymbol("a").isPassedByReference(), is(false));
+    assertThat(methodScope.getSymbol("b").isPassedByReference(), is(true));
+    assertThat(methodScope.getSymbol("c").isPassedByReference(), is(true));
+
+    assertThat(names(semanticModel.getScope(method.getFirstDescendant(CSharpGrammar.BLOCK))), is("[LOCAL_VARIABLE local, LOCAL_VARIABLE localConstant]"));
+    assertThat(names(semanticModel.getScope(method.getFirstDescendant(CSharpGrammar.FOREACH_STATEMENT))), is("[LOCAL_VARIABLE item]"));
+    assertThat(names(semanticModel.getScope(method.getFirstDescendant(CSharpGrammar.SPECIFIC_CATCH_CLAUSE))), is("[LOCAL_VARIABLE e]"));
+    assertThat(names(semanticModel.getScope(tree.getFirstDescendant(CSharpGrammar.SET_ACCESSOR_DECLARATION))), is("[PARAMETER value]"));
+  }
+
+  @Test
+  public void should_resolve_names_from_the_innermost_scope() {
+    AstNode tree = parse(
+        "class Foo {",
+        "  int a;",
+        "  void Bar(int b) {",
+        "    Func<int, int> f = a => a + b + c;",
+        "  }",
+        "}");
+    semanticModel.build(tree);
+
+    List<AstNode> identifiers = tree.getFirstDescendant(CSharpGrammar.LAMBDA_EXPRESSION).getDescendants(GenericTokenType.IDENTIFIER);
+    assertThat(identifiers.size(), is(4));
+
+    Symbol lambdaParameter = semanticModel.resolve(identifiers.get(0));
+    assertThat(lambdaParameter.is(Symbol.Kind.PARAMETER), is(true));
+    assertThat(lambdaParameter.getScope().getTree().is(CSharpGrammar.LAMBDA_EXPRESSION), is(true));
+    assertThat(semanticModel.resolve(identifiers.get(1)), sameInstance(lambdaParameter));
+    assertThat(semanticModel.resolve(identifiers.get(2)).getScope().getTree().is(CSharpGrammar.METHOD_DECLARATION), is(true));
+    assertThat(semanticModel.resolve(identifiers.get(3)), nullValue());
+  }
+
+  @Test
+  public void should_record_the_referenced_types_in_the_innermost_type_declaration() {
+    AstNode tree = parse(
+        "class Foo {",
+        "  List<Bar> a;",
+        "  Bar Baz(Qux q) { return null; }",
+        "  class Nested {",
+        "    Nested n;",
+        "  }",
+        "}");
+    semanticModel.build(tree);
+
+    List<AstNode> classes = tree.getDescendants(CSharpGrammar.CLASS_DECLARATION);
+    assertThat(semanticModel.getScope(classes.get(0)).getReferencedTypes(), is((Object) ImmutableSet.of("List<Bar>", "Bar", "Qux")));
+    assertThat(semanticModel.getScope(classes.get(1)).getReferencedTypes(), is((Object) ImmutableSet.of("Nested")));
+  }
+
+  @Test
+  public void should_be_empty_once_cleared() {
+    AstNode tree = parse("class Foo { }");
+    semanticModel.build(tree);
+    assertThat(semanticModel.getEnclosingScope(tree.getFirstDescendant(CSharpGrammar.CLASS_DECLARATION)).getTree().is(CSharpGrammar.CLASS_DECLARATION), is(true));
+
+    semanticModel.clear();
+    assertThat(semanticModel.getScope(tree), nullValue());
+
+    semanticModel.build(null);
+    assertThat(semanticModel.getScope(tree), nullValue());
+  }
+
+  private static AstNode parse(String... lines) {
+    StringBuilder sb = new StringBuilder();
+    for (String line : lines) {
+      sb.append(line).append('\n');
+    }
+    return CSharpParser.create(new CSharpConfiguration(Charsets.UTF_8)).parse(sb.toString());
+  }
+
+  private static String names(Scope scope) {
+    List<String> names = Lists.newArrayList();
+    for (Symbol symbol : scope.getSymbols()) {
+      names.add(symbol.toString());
+    }
+    return names.toString();
+  }
+
+}
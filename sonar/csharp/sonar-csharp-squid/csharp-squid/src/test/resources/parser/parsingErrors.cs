@@ -0,0 +1,23 @@
+using System;
+
+namespace Errors
+{
+  class Program
+  {
+    public int Answer => 42;
+
+    static void Main(string[] args)
+    {
+      Console.WriteLine("Hello World!"));
+      if (args.Length > 0)
+      {
+        int i = args.Length not 0;
+        Console.WriteLine(i);
+      }
+    }
+
+    void Other()
+    {
+    }
+  }
+}
@@ -335,13 +335,20 @@ public final class ModelFactory {
 
       if (buildConfigurations != null) {
         Map<BuildConfiguration, File> buildConfOutputDirMap = new HashMap<BuildConfiguration, File>();
+        Map<BuildConfiguration, List<String>> buildConfDefineConstantsMap = new HashMap<BuildConfiguration, List<String>>();
         for (BuildConfiguration config : buildConfigurations) {
           XPathExpression configOutputExpression = xpath.compile("/vst:Project/vst:PropertyGroup[contains(@Condition,'" + config
             + "')]/vst:OutputPath");
           String configOutput = extractProjectProperty(configOutputExpression, projectFile);
           buildConfOutputDirMap.put(config, new File(projectDir, configOutput));
+
+          XPathExpression configDefineConstantsExpression = xpath.compile("/vst:Project/vst:PropertyGroup[contains(@Condition,'" + config
+            + "')]/vst:DefineConstants");
+          String configDefineConstants = extractProjectProperty(configDefineConstantsExpression, projectFile);
+          buildConfDefineConstantsMap.put(config, getDefineConstants(configDefineConstants));
         }
         project.setBuildConfOutputDirMap(buildConfOutputDirMap);
+        project.setBuildConfDefineConstantsMap(buildConfDefineConstantsMap);
       }
 
       XPathExpression projectTypeExpression = xpath.compile("/vst:Project/vst:PropertyGroup/vst:OutputType");
@@ -397,6 +404,19 @@ public final class ModelFactory {
     }
   }
 
+  /**
+   * Splits the value of a DefineConstants property, leaving out the references to other MSBuild properties like $(DefineConstants).
+   */
+  private static List<String> getDefineConstants(String defineConstants) {
+    List<String> result = new ArrayList<String>();
+    for (String symbol : StringUtils.split(defineConstants, ";, ")) {
+      if (!symbol.startsWith("$(")) {
+        result.add(symbol);
+      }
+    }
+    return result;
+  }
+
   protected static String findAssemblyVersion(Collection<SourceFile> sourceFiles) {
     String version = null;
 
@@ -31,6 +31,8 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -58,6 +60,7 @@ public class VisualStudioProject {
   /** Output directory specified from maven */
   private String forcedOutputDir;
   private Map<BuildConfiguration, File> buildConfOutputDirMap;
+  private Map<BuildConfiguration, List<String>> buildConfDefineConstantsMap = new HashMap<BuildConfiguration, List<String>>();
   private File directory;
   private boolean silverlightProject;
   private Map<File, SourceFile> sourceFileMap;
@@ -175,6 +178,24 @@ public class VisualStudioProject {
     return artifactDirectory;
   }
 
+  /**
+   * Provides the conditional compilation symbols defined by this project for the build configuration used.
+   *
+   * @param buildConfiguration
+   *          Visual Studio build configuration used to generate the project
+   * @param buildPlatform
+   *          Platform used to build the project. Typical values are "Any CPU", "x86" and "x64"
+   * @return the symbols, or an empty list if the build configuration is not found
+   */
+  public List<String> getDefineConstants(String buildConfiguration, String buildPlatform) {
+    List<String> defineConstants = buildConfDefineConstantsMap.get(new BuildConfiguration(buildConfiguration, buildPlatform));
+    if (defineConstants == null) {
+      LOG.warn("Configuration(s) {} not found for platform {} in " + projectFile, buildConfiguration, buildPlatform);
+      return Collections.emptyList();
+    }
+    return defineConstants;
+  }
+
   /**
    * Gets the generated assembly according to the build configurations
    *
@@ -500,6 +521,10 @@ public class VisualStudioProject {
     this.buildConfOutputDirMap = buildConfOutputDirMap;
   }
 
+  void setBuildConfDefineConstantsMap(Map<BuildConfiguration, List<String>> buildConfDefineConstantsMap) {
+    this.buildConfDefineConstantsMap = buildConfDefineConstantsMap;
+  }
+
   void setForcedOutputDir(String forcedOutputDir) {
     this.forcedOutputDir = forcedOutputDir;
   }
@@ -90,6 +90,16 @@ public class ModelFactoryTest {
 
   }
 
+  @Test
+  public void testDefineConstants() throws Exception {
+    File file = new File(SOLUTION_WITH_CUSTOM_BUILD_PATH);
+    VisualStudioProject project = ModelFactory.getSolution(file).getProjects().get(0);
+
+    assertThat(project.getDefineConstants("Debug", "Any CPU")).containsExactly("DEBUG", "TRACE");
+    assertThat(project.getDefineConstants("Release", "Any CPU")).containsExactly("TRACE");
+    assertThat(project.getDefineConstants("Unknown", "Any CPU")).isEmpty();
+  }
+
   @Test
   public void testReadSolution() throws Exception {
     File file = new File(SOLUTION_PATH);